@@ -4,8 +4,8 @@ import org.grobid.core.layout.LayoutToken;
 import org.grobid.core.lang.Language;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
-import java.util.StringTokenizer;
 
 /**
  * Tokenizer for all Indo-European languages and identifying dataset mentions.
@@ -42,7 +42,17 @@ public class DataseerAnalyzer implements org.grobid.core.analyzers.Analyzer {
     }
 
     public static final String DELIMITERS = " \n\r\t([^%‰°,:;?.!/)-–−=≈<>+\"“”‘’'`$®]*\u2666\u2665\u2663\u2660\u00A0";
-    private static final String REGEX = "(?<=[a-zA-Z])(?=\\d)|(?<=\\d)(?=\\D)";
+
+    // delimiter lookup, indexed by character
+    private static final BitSet DELIMITER_SET = new BitSet();
+    static {
+        for (int i = 0; i < DELIMITERS.length(); i++)
+            DELIMITER_SET.set(DELIMITERS.charAt(i));
+    }
+
+    public static boolean isDelimiter(char c) {
+        return DELIMITER_SET.get(c);
+    }
 
     public String getName() {
         return "DataseerAnalyzer";
@@ -56,33 +66,60 @@ public class DataseerAnalyzer implements org.grobid.core.analyzers.Analyzer {
 
     public List<String> tokenize(String text, Language lang) {
         List<String> result = new ArrayList<>();
-        StringTokenizer st = new StringTokenizer(text, DELIMITERS, true);
-        while (st.hasMoreTokens()) {
-            String token = st.nextToken();
-            // in addition we split "letter" characters and digits
-            String[] subtokens = token.split(REGEX);
-            for (int i = 0; i < subtokens.length; i++) {
-                result.add(subtokens[i]);
-            }
+        int start = 0;
+        while (start < text.length()) {
+            int end = nextTokenEnd(text, start);
+            result.add(text.substring(start, end));
+            start = end;
         }
         return result;
     }
 
+    /**
+     * Single pass tokenization: every delimiter is a token, other characters are grouped into 
+     * tokens which are in addition split between a latin letter and a following digit, and 
+     * between a digit and a following non-digit character.
+     *
+     * @return the end offset of the token starting at the given offset
+     */
+    private static int nextTokenEnd(String text, int start) {
+        if (isDelimiter(text.charAt(start)))
+            return start + 1;
+        int end = start + 1;
+        char previous = text.charAt(start);
+        while (end < text.length()) {
+            char c = text.charAt(end);
+            if (isDelimiter(c))
+                break;
+            boolean digit = isDigit(c);
+            if (digit && isLatinLetter(previous))
+                break;
+            if (!digit && isDigit(previous))
+                break;
+            previous = c;
+            end++;
+        }
+        return end;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLatinLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
     public List<LayoutToken> tokenizeWithLayoutToken(String text) {
         List<LayoutToken> result = new ArrayList<>();
-        StringTokenizer st = new StringTokenizer(text, DELIMITERS, true);
-        int ind = 0;
-        while (st.hasMoreTokens()) {
-            String token = st.nextToken();
-            // in addition we split "letter" characters and digits
-            String[] subtokens = token.split(REGEX);
-            for (int i = 0; i < subtokens.length; i++) {
-                LayoutToken layoutToken = new LayoutToken();
-                layoutToken.setText(subtokens[i]);
-                layoutToken.setOffset(ind);
-                result.add(layoutToken);
-                ind += layoutToken.getText().length();
-            }
+        int start = 0;
+        while (start < text.length()) {
+            int end = nextTokenEnd(text, start);
+            LayoutToken layoutToken = new LayoutToken();
+            layoutToken.setText(text.substring(start, end));
+            layoutToken.setOffset(start);
+            result.add(layoutToken);
+            start = end;
         }
 
         return result;
@@ -107,16 +144,13 @@ public class DataseerAnalyzer implements org.grobid.core.analyzers.Analyzer {
      public List<LayoutToken> tokenize(LayoutToken chunk) {
         List<LayoutToken> result = new ArrayList<>();
         String text = chunk.getText();
-        StringTokenizer st = new StringTokenizer(text, DELIMITERS, true);
-        while (st.hasMoreTokens()) {
-            String token = st.nextToken();
-            // in addition we split "letter" characters and digits
-            String[] subtokens = token.split(REGEX);
-            for (int i = 0; i < subtokens.length; i++) {
-                LayoutToken theChunk = new LayoutToken(chunk); // deep copy
-                theChunk.setText(subtokens[i]);
-                result.add(theChunk);
-            }
+        int start = 0;
+        while (start < text.length()) {
+            int end = nextTokenEnd(text, start);
+            LayoutToken theChunk = new LayoutToken(chunk); // deep copy
+            theChunk.setText(text.substring(start, end));
+            result.add(theChunk);
+            start = end;
         }
 
         return result;
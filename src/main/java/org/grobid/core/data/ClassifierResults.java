@@ -0,0 +1,133 @@
+package org.grobid.core.data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Raw output of a DeLFT text classifier model for a list of texts: the class labels of the model
+ * and, for each text, the probability of each label in a primitive array indexed like the labels.
+ */
+public class ClassifierResults {
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final String[] labels;
+    private final List<String> texts;
+    private final List<double[]> probabilities;
+
+    public ClassifierResults(String[] labels, List<String> texts, List<double[]> probabilities) {
+        this.labels = labels;
+        this.texts = texts;
+        this.probabilities = probabilities;
+    }
+
+    public static ClassifierResults empty() {
+        return new ClassifierResults(new String[0], Collections.<String>emptyList(), Collections.<double[]>emptyList());
+    }
+
+    /**
+     * Read the JSON produced by a DeLFT classifier, without building a JSON tree.
+     * The expected format is:
+     * {"model": "...", "software": "DeLFT", "date": "...", "classifications": [{"text": "...", "label1": 0.1, ...}, ...]}
+     */
+    public static ClassifierResults fromJson(String json) throws IOException {
+        if (json == null || json.length() == 0)
+            return empty();
+
+        List<String> labelList = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        List<double[]> probabilities = new ArrayList<>();
+
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                return empty();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (!"classifications".equals(fieldName) || token != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    String text = null;
+                    double[] probs = new double[labelList.size()];
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String key = parser.getCurrentName();
+                        token = parser.nextToken();
+                        if ("text".equals(key)) {
+                            text = parser.getText();
+                        } else if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+                            int index = labelList.indexOf(key);
+                            if (index == -1) {
+                                labelList.add(key);
+                                index = labelList.size() - 1;
+                            }
+                            if (index >= probs.length)
+                                probs = Arrays.copyOf(probs, labelList.size());
+                            probs[index] = parser.getDoubleValue();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    texts.add(text);
+                    probabilities.add(probs);
+                }
+            }
+        }
+
+        return new ClassifierResults(labelList.toArray(new String[labelList.size()]), texts, probabilities);
+    }
+
+    public int size() {
+        return texts.size();
+    }
+
+    public String[] getLabels() {
+        return labels;
+    }
+
+    public int getLabelIndex(String label) {
+        for(int i=0; i<labels.length; i++) {
+            if (labels[i].equals(label))
+                return i;
+        }
+        return -1;
+    }
+
+    public String getText(int index) {
+        return texts.get(index);
+    }
+
+    /**
+     * @return the probabilities of the text at the given index, indexed like the labels
+     */
+    public double[] getProbabilities(int index) {
+        double[] probs = probabilities.get(index);
+        if (probs.length < labels.length)
+            probs = Arrays.copyOf(probs, labels.length);
+        return probs;
+    }
+
+    public double getProbability(int index, int labelIndex) {
+        if (labelIndex < 0)
+            return 0.0;
+        double[] probs = probabilities.get(index);
+        return (labelIndex < probs.length) ? probs[labelIndex] : 0.0;
+    }
+
+    /**
+     * @return a view on the results of the texts between fromIndex (inclusive) and toIndex (exclusive)
+     */
+    public ClassifierResults subList(int fromIndex, int toIndex) {
+        toIndex = Math.min(toIndex, texts.size());
+        fromIndex = Math.min(fromIndex, toIndex);
+        return new ClassifierResults(labels, texts.subList(fromIndex, toIndex), probabilities.subList(fromIndex, toIndex));
+    }
+}
@@ -0,0 +1,61 @@
+package org.grobid.core.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Textual content of a section (<div>) of a TEI document as used for the dataset enrichment:
+ * the text of its header and, for each of its paragraphs, the paragraph text and its sentences.
+ * After classification, the section is marked as relevant if the section labelling considers
+ * it as data-related.
+ */
+public class DocumentSection {
+
+    // null if the section has no header
+    private String head = null;
+
+    private List<String> paragraphs = new ArrayList<>();
+    private List<List<String>> paragraphSentences = new ArrayList<>();
+
+    private boolean relevant = false;
+
+    public String getHead() {
+        return head;
+    }
+
+    public void setHead(String head) {
+        this.head = head;
+    }
+
+    public boolean hasHead() {
+        return head != null;
+    }
+
+    /**
+     * A section with an empty header is ignored
+     */
+    public boolean isIgnored() {
+        return head != null && head.length() == 0;
+    }
+
+    public void addParagraph(String text, List<String> sentences) {
+        paragraphs.add(text);
+        paragraphSentences.add(sentences);
+    }
+
+    public List<String> getParagraphs() {
+        return paragraphs;
+    }
+
+    public List<List<String>> getParagraphSentences() {
+        return paragraphSentences;
+    }
+
+    public boolean isRelevant() {
+        return relevant;
+    }
+
+    public void setRelevant(boolean relevant) {
+        this.relevant = relevant;
+    }
+}
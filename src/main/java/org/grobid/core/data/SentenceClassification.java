@@ -0,0 +1,143 @@
+package org.grobid.core.data;
+
+import java.io.IOException;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Result of the classification cascade for one sentence: dataset/no dataset probabilities from
+ * the binary model and, for the sentences likely introducing a dataset, the data type probabilities
+ * from the first-level model and the reuse information from the reuse model.
+ */
+public class SentenceClassification {
+
+    private String text;
+
+    private double hasDatasetProbability = 0.0;
+    private double noDatasetProbability = 0.0;
+
+    // first-level data type labels (shared by all the results of the same model call) and the
+    // corresponding probabilities, null if the sentence was not cascaded
+    private String[] dataTypeLabels = null;
+    private double[] dataTypeProbabilities = null;
+
+    // reuse information, only meaningful if hasReuseInfo is true
+    private boolean hasReuseInfo = false;
+    private boolean reuse = false;
+
+    public SentenceClassification(String text, double hasDatasetProbability, double noDatasetProbability) {
+        this.text = text;
+        this.hasDatasetProbability = hasDatasetProbability;
+        this.noDatasetProbability = noDatasetProbability;
+    }
+
+    /**
+     * @return a copy of this classification for another text, typically the same sentence with
+     * a different spacing
+     */
+    public SentenceClassification withText(String otherText) {
+        SentenceClassification copy = new SentenceClassification(otherText, hasDatasetProbability, noDatasetProbability);
+        copy.dataTypeLabels = this.dataTypeLabels;
+        copy.dataTypeProbabilities = this.dataTypeProbabilities;
+        copy.hasReuseInfo = this.hasReuseInfo;
+        copy.reuse = this.reuse;
+        return copy;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public double getHasDatasetProbability() {
+        return hasDatasetProbability;
+    }
+
+    public double getNoDatasetProbability() {
+        return noDatasetProbability;
+    }
+
+    /**
+     * @return true if the binary model considers a dataset more likely than no dataset
+     */
+    public boolean hasDataset() {
+        return hasDatasetProbability > noDatasetProbability;
+    }
+
+    public void setDataTypes(String[] labels, double[] probabilities) {
+        this.dataTypeLabels = labels;
+        this.dataTypeProbabilities = probabilities;
+    }
+
+    public String[] getDataTypeLabels() {
+        return dataTypeLabels;
+    }
+
+    public double[] getDataTypeProbabilities() {
+        return dataTypeProbabilities;
+    }
+
+    public boolean hasDataTypes() {
+        return dataTypeLabels != null && dataTypeProbabilities != null;
+    }
+
+    public void setReuse(boolean reuse) {
+        this.hasReuseInfo = true;
+        this.reuse = reuse;
+    }
+
+    public boolean hasReuseInfo() {
+        return hasReuseInfo;
+    }
+
+    public boolean isReuse() {
+        return hasReuseInfo && reuse;
+    }
+
+    /**
+     * @return the data type with the highest probability and this probability, the data type is null
+     * if no data type has a non-zero probability
+     */
+    public Pair<String, Double> getBestDataType() {
+        String bestDataType = null;
+        double bestProb = 0.0;
+        if (hasDataTypes()) {
+            for(int i=0; i<dataTypeLabels.length && i<dataTypeProbabilities.length; i++) {
+                if (dataTypeProbabilities[i] > bestProb) {
+                    bestProb = dataTypeProbabilities[i];
+                    bestDataType = dataTypeLabels[i];
+                }
+            }
+        }
+        return Pair.of(bestDataType, new Double(bestProb));
+    }
+
+    /**
+     * Write the classification as a JSON object, in the format of the classification service.
+     */
+    public void writeJson(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("text", text);
+        writeJsonScores(generator);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Write the probability fields of the classification in the current JSON object
+     */
+    public void writeJsonScores(JsonGenerator generator) throws IOException {
+        if (hasDataTypes()) {
+            for(int i=0; i<dataTypeLabels.length && i<dataTypeProbabilities.length; i++) {
+                generator.writeNumberField(dataTypeLabels[i], dataTypeProbabilities[i]);
+            }
+            generator.writeNumberField("has_dataset", hasDatasetProbability);
+            generator.writeNumberField("no_dataset", noDatasetProbability);
+            if (hasReuseInfo)
+                generator.writeBooleanField("reuse", reuse);
+        } else {
+            generator.writeNumberField("no_dataset", noDatasetProbability);
+            generator.writeNumberField("has_dataset", hasDatasetProbability);
+        }
+    }
+}
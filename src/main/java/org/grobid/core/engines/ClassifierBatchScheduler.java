@@ -0,0 +1,142 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.data.ClassifierResults;
+import org.grobid.core.jni.DeLFTClassifierModel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-batching of the calls to a DeLFT classifier model. The sentences submitted concurrently
+ * by different callers are merged into one inference batch, limited by a maximum number of sentences
+ * and a maximum waiting time, then the classification results are split back per caller.
+ */
+public class ClassifierBatchScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(ClassifierBatchScheduler.class);
+
+    private final DeLFTClassifierModel model;
+    private final int maxBatchSize;
+    private final long maxWaitMillis;
+
+    private final BlockingQueue<PendingRequest> queue = new LinkedBlockingQueue<>();
+    private final Thread worker;
+
+    private volatile boolean running = true;
+
+    public ClassifierBatchScheduler(DeLFTClassifierModel model, String name, int maxBatchSize, long maxWaitMillis) {
+        this.model = model;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxWaitMillis = Math.max(0, maxWaitMillis);
+
+        this.worker = new Thread(this::processQueue, "dataseer-batch-" + name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Classify a list of texts, possibly together with the texts of other callers.
+     * @return the results of the model for the given texts
+     */
+    public ClassifierResults classify(List<String> texts) throws Exception {
+        if (texts == null || texts.size() == 0)
+            return ClassifierResults.empty();
+        if (!running)
+            throw new IllegalStateException("The batch scheduler has been shut down");
+        PendingRequest request = new PendingRequest(texts);
+        queue.add(request);
+        try {
+            return request.result.get();
+        } catch(ExecutionException e) {
+            if (e.getCause() instanceof Exception)
+                throw (Exception) e.getCause();
+            throw e;
+        }
+    }
+
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+        PendingRequest request;
+        while ((request = queue.poll()) != null)
+            request.result.completeExceptionally(new IllegalStateException("The batch scheduler has been shut down"));
+    }
+
+    private void processQueue() {
+        // a request which would have made the previous batch exceed the maximum size
+        PendingRequest carry = null;
+        while (running) {
+            List<PendingRequest> batch = new ArrayList<>();
+            int batchSize = 0;
+            try {
+                PendingRequest first = (carry != null) ? carry : queue.take();
+                carry = null;
+                batch.add(first);
+                batchSize += first.texts.size();
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+                while (batchSize < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0)
+                        break;
+                    PendingRequest next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null)
+                        break;
+                    if (batchSize + next.texts.size() > maxBatchSize) {
+                        carry = next;
+                        break;
+                    }
+                    batch.add(next);
+                    batchSize += next.texts.size();
+                }
+            } catch(InterruptedException e) {
+                for(PendingRequest request : batch)
+                    request.result.completeExceptionally(e);
+                if (carry != null)
+                    carry.result.completeExceptionally(e);
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            runBatch(batch, batchSize);
+        }
+    }
+
+    private void runBatch(List<PendingRequest> batch, int batchSize) {
+        try {
+            List<String> texts = new ArrayList<>(batchSize);
+            for(PendingRequest request : batch)
+                texts.addAll(request.texts);
+
+            logger.debug("batch classification: " + batch.size() + " request(s), " + texts.size() + " sentence(s)");
+            ClassifierResults results = ClassifierResults.fromJson(model.classify(texts));
+
+            // split the classifications back, in the order of submission
+            int offset = 0;
+            for(PendingRequest request : batch) {
+                request.result.complete(results.subList(offset, offset + request.texts.size()));
+                offset += request.texts.size();
+            }
+        } catch(Throwable t) {
+            logger.error("Batch classification failed", t);
+            for(PendingRequest request : batch)
+                request.result.completeExceptionally(t);
+        }
+    }
+
+    private static class PendingRequest {
+        private final List<String> texts;
+        private final CompletableFuture<ClassifierResults> result = new CompletableFuture<>();
+
+        PendingRequest(List<String> texts) {
+            this.texts = texts;
+        }
+    }
+}
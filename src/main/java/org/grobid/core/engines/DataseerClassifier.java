@@ -4,6 +4,9 @@ import org.apache.commons.io.FileUtils;
 import org.grobid.core.GrobidModels;
 import org.grobid.core.analyzers.DataseerAnalyzer;
 import org.grobid.core.data.BiblioItem;
+import org.grobid.core.data.ClassifierResults;
+import org.grobid.core.data.DocumentSection;
+import org.grobid.core.data.SentenceClassification;
 import org.grobid.core.document.Document;
 import org.grobid.core.document.DocumentPiece;
 import org.grobid.core.document.DocumentSource;
@@ -16,6 +19,7 @@ import org.grobid.core.layout.LayoutToken;
 import org.grobid.core.layout.LayoutTokenization;
 import org.grobid.core.utilities.*;
 import org.grobid.core.lexicon.DataseerLexicon;
+import org.grobid.core.lexicon.DataTypeTaxonomy;
 import org.grobid.core.main.GrobidHomeFinder;
 import org.grobid.core.main.LibraryLoader;
 import org.grobid.core.engines.tagging.GrobidCRFEngine;
@@ -44,6 +48,18 @@ import java.io.*;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.Gauge;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.codahale.metrics.Timer;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -92,6 +108,8 @@ public class DataseerClassifier {
     private static List<String> textualElements = Arrays.asList("p", "figDesc");
     //private static List<String> textualElements = Arrays.asList("p");
 
+    private static SentenceSegmenter sentenceSegmenter = new SentenceSegmenter(textualElements);
+
     // map of classification models (binay, first-level, etc.)
     private Map<String,DeLFTClassifierModel> models = null;
 
@@ -99,8 +117,30 @@ public class DataseerClassifier {
     private DeLFTClassifierModel classifierFirstLevel = null;
     private DeLFTClassifierModel classifierReuse = null;
 
+    // optional micro-batching of the classifier calls across concurrent requests
+    private ClassifierBatchScheduler schedulerBinary = null;
+    private ClassifierBatchScheduler schedulerFirstLevel = null;
+    private ClassifierBatchScheduler schedulerReuse = null;
+
+    // optional cache of the sentence classification results
+    private SentenceClassificationCache classificationCache = null;
+
+    // optional cache of the results of whole document processing
+    private DocumentResultCache documentCache = null;
+
+    // optional pool for running the first-level and reuse models in parallel
+    private ExecutorService cascadeExecutor = null;
+
     private DataseerConfiguration dataseerConfiguration = null;
 
+    // GROBID profile of the configuration, validated at initialisation
+    private GrobidProfile grobidProfile = GrobidProfile.DEFAULT;
+
+    // version of the classification models, from the content of the model files
+    private String modelVersion = null;
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
     public static DataseerClassifier getInstance() {
         if (instance == null) {
             getNewInstance();
@@ -187,6 +227,11 @@ public class DataseerClassifier {
             LibraryLoader.addLibraryPath(libraryFolder.getAbsolutePath());
             */
 
+            // an invalid profile fails the initialisation rather than every PDF request
+            GrobidProfile configuredProfile = GrobidProfile.fromName(dataseerConfiguration.getGrobidProfile());
+            if (configuredProfile != null)
+                this.grobidProfile = configuredProfile;
+
             // grobid
             engine = GrobidFactory.getInstance().createEngine();
 
@@ -201,6 +246,56 @@ public class DataseerClassifier {
                 }
             }
 
+            if (dataseerConfiguration.getClassifierBatchScheduling()) {
+                int maxBatchSize = dataseerConfiguration.getClassifierMaxBatchSize();
+                long maxWaitMillis = dataseerConfiguration.getClassifierMaxWaitMillis();
+                this.schedulerBinary = new ClassifierBatchScheduler(this.classifierBinary, "dataseer-binary", 
+                    maxBatchSize, maxWaitMillis);
+                this.schedulerFirstLevel = new ClassifierBatchScheduler(this.classifierFirstLevel, "dataseer-first", 
+                    maxBatchSize, maxWaitMillis);
+                this.schedulerReuse = new ClassifierBatchScheduler(this.classifierReuse, "dataseer-reuse", 
+                    maxBatchSize, maxWaitMillis);
+            }
+
+            if (dataseerConfiguration.getClassificationCache()) {
+                this.classificationCache = new SentenceClassificationCache(this.getModelVersion(), 
+                    dataseerConfiguration.getClassificationCacheSize(),
+                    TimeUnit.HOURS.toMillis(dataseerConfiguration.getClassificationCacheTTLHours()),
+                    dataseerConfiguration.getClassificationCachePath(),
+                    dataseerConfiguration.getClassificationCacheDiskMB() * 1024 * 1024);
+                registerCacheMetrics(this.classificationCache);
+            }
+
+            if (dataseerConfiguration.getDocumentCache()) {
+                String documentCachePath = dataseerConfiguration.getDocumentCachePath();
+                if (documentCachePath == null || documentCachePath.trim().length() == 0)
+                    documentCachePath = dataseerConfiguration.getTmpPath() + File.separator + "document-cache";
+                this.documentCache = new DocumentResultCache(this.getDocumentVersion(), 
+                    dataseerConfiguration.getDocumentCacheMemoryMB() * 1024 * 1024,
+                    dataseerConfiguration.getDocumentCacheDiskMB() * 1024 * 1024,
+                    documentCachePath);
+            }
+
+            // compile the Pub2TEI stylesheets at startup, if Pub2TEI is installed
+            String pub2teiPath = dataseerConfiguration.getPub2TEIPath();
+            if (pub2teiPath != null && new File(pub2teiPath, "Stylesheets" + File.separator + "Publishers.xsl").exists()) {
+                try {
+                    Pub2TEITransformer.getInstance(pub2teiPath);
+                } catch(Exception e) {
+                    logger.warn("Pub2TEI stylesheets cannot be loaded, processing of publisher XML will fail", e);
+                }
+            }
+
+            if (dataseerConfiguration.getParallelCascade()) {
+                final AtomicInteger threadCount = new AtomicInteger();
+                this.cascadeExecutor = Executors.newFixedThreadPool(
+                    Math.max(1, dataseerConfiguration.getCascadeThreads()), r -> {
+                        Thread thread = new Thread(r, "dataseer-cascade-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            }
+
         } catch (Exception e) {
             throw new GrobidException("Cannot initialise DataSeer classifier ", e);
         }
@@ -210,6 +305,115 @@ public class DataseerClassifier {
         return this.dataseerConfiguration;
     }
 
+    public SentenceClassificationCache getClassificationCache() {
+        return this.classificationCache;
+    }
+
+    /**
+     * @return the cache of the document processing results, null if disabled
+     */
+    public DocumentResultCache getDocumentCache() {
+        return this.documentCache;
+    }
+
+    /**
+     * Identify the version of the classification models, based on the model names, their architectures
+     * and the content of the model files in the GROBID home (modification times are not reliable, 
+     * they can be preserved when a model is replaced). The model files are hashed only once.
+     */
+    public synchronized String getModelVersion() {
+        if (this.modelVersion != null)
+            return this.modelVersion;
+        StringBuilder version = new StringBuilder();
+        for(ModelParameters parameter : dataseerConfiguration.getModels()) {
+            if (parameter.delft == null || !parameter.name.startsWith("dataseer-"))
+                continue;
+            version.append(parameter.name).append("_").append(parameter.delft.architecture);
+            File modelDir = new File(dataseerConfiguration.getGrobidHome(), 
+                "models" + File.separator + parameter.name + "_" + parameter.delft.architecture);
+            version.append(":").append(contentHash(modelDir)).append(";");
+        }
+        this.modelVersion = version.toString();
+        return this.modelVersion;
+    }
+
+    /**
+     * Identify the version of the whole document processing: classification models, section 
+     * labelling model, data type taxonomy, Pub2TEI stylesheets and the settings changing the 
+     * results. The other settings (caches, jobs, admission control, threads, paths) do not change
+     * the version, so that changing them does not invalidate the document cache.
+     */
+    public String getDocumentVersion() {
+        StringBuilder version = new StringBuilder(getModelVersion());
+        File modelsDir = new File(dataseerConfiguration.getGrobidHome(), "models");
+        version.append("dataseer:").append(contentHash(new File(modelsDir, "dataseer"))).append(";");
+        // GROBID and its own models (segmentation, header, fulltext, etc.) for the PDF conversion
+        version.append("grobid:").append(GrobidProperties.getVersion()).append(":");
+        File[] grobidModels = modelsDir.listFiles(file -> !file.getName().startsWith("dataseer"));
+        if (grobidModels != null) {
+            Arrays.sort(grobidModels);
+            Hasher hasher = Hashing.sha256().newHasher();
+            for(File grobidModel : grobidModels)
+                hasher.putString(grobidModel.getName(), UTF_8).putString(contentHash(grobidModel), UTF_8);
+            version.append(hasher.hash().toString());
+        }
+        version.append(";");
+        version.append("taxonomy:").append(contentHash(new File("resources/DataTypes.json")))
+            .append(",").append(contentHash(new File("resources/fulltypes.json"))).append(";");
+        if (dataseerConfiguration.getPub2TEIPath() != null) {
+            version.append("pub2tei:").append(contentHash(new File(dataseerConfiguration.getPub2TEIPath(), 
+                "Stylesheets"))).append(";");
+        }
+        version.append("documentLevelClassification:")
+            .append(dataseerConfiguration.getDocumentLevelClassification()).append(";");
+        version.append("grobidProfile:").append(getGrobidProfile()).append(";");
+        // the enrichment pipeline changes the formatting of the TEI and the sentence identifiers
+        version.append("streamingEnrichment:").append(dataseerConfiguration.getStreamingEnrichment()).append(";");
+        version.append("incrementalEnrichment:").append(dataseerConfiguration.getIncrementalEnrichment()).append(";");
+        try {
+            // model parameters (architectures, embeddings, etc.)
+            version.append("models:").append(Hashing.sha256()
+                .hashBytes(new ObjectMapper().writeValueAsBytes(dataseerConfiguration.getModels())).toString());
+        } catch(Exception e) {
+            logger.warn("The model parameters cannot be hashed for the document cache version", e);
+        }
+        return version.toString();
+    }
+
+    /**
+     * Last modification time of a file, or of a directory and of its files
+     */
+    /**
+     * SHA-256 of the content of a file, or of the names and contents of the files under a 
+     * directory, "none" if the file does not exist
+     */
+    private static String contentHash(File file) {
+        if (!file.exists())
+            return "none";
+        Hasher hasher = Hashing.sha256().newHasher();
+        try {
+            hashContent(file, hasher);
+        } catch(IOException e) {
+            logger.warn("Cannot read " + file.getPath() + " for the version of the models", e);
+            // the version changes at each start, nothing stale is served
+            hasher.putLong(System.nanoTime());
+        }
+        return hasher.hash().toString();
+    }
+
+    private static void hashContent(File file, Hasher hasher) throws IOException {
+        File[] files = file.listFiles();
+        if (files == null) {
+            com.google.common.io.Files.asByteSource(file).copyTo(Funnels.asOutputStream(hasher));
+            return;
+        }
+        Arrays.sort(files);
+        for(File child : files) {
+            hasher.putString(child.getName(), UTF_8).putByte((byte) 0);
+            hashContent(child, hasher);
+        }
+    }
+
     /**
      * Classify a simple piece of text
      * @return JSON string
@@ -229,176 +433,175 @@ public class DataseerClassifier {
     public String classify(List<String> texts) throws Exception {
         if (texts == null || texts.size() == 0)
             return null;
-        logger.info("classify: " + texts.size() + " sentence(s)");
-        ObjectMapper mapper = new ObjectMapper();
-        
-        String the_json = classifierBinary.classify(texts);
+        return toJson(classifySentences(texts));
+    }
 
-        // first pass to select texts to be cascaded to next level
-        List<String> cascaded_texts = new ArrayList<String>();
-        JsonNode root = null;
-        if (the_json != null && the_json.length() > 0) {
-            root = mapper.readTree(the_json);
-            JsonNode classificationsNode = root.findPath("classifications");
-            if ((classificationsNode != null) && (!classificationsNode.isMissingNode())) {
-                Iterator<JsonNode> ite = classificationsNode.elements();
-                while (ite.hasNext()) {
-                    JsonNode classificationNode = ite.next();
-                    JsonNode datasetNode = classificationNode.findPath("dataset");
-                    JsonNode noDatasetNode = classificationNode.findPath("no_dataset");
-
-                    if ((datasetNode != null) && (!datasetNode.isMissingNode()) &&
-                        (noDatasetNode != null) && (!noDatasetNode.isMissingNode()) ) {
-                        double probDataset = datasetNode.asDouble();
-                        double probNoDataset = noDatasetNode.asDouble();
-
-                        //System.out.println(probDataset + " " + probNoDataset);
-                        if (probDataset > probNoDataset) {
-                            JsonNode textNode = classificationNode.findPath("text");
-                            cascaded_texts.add(textNode.asText());
-                        } 
-
-                        // rename "dataset" attribute to avoid confusion with "Dataset" type of the taxonomy
-                        ((ObjectNode)classificationNode).put("has_dataset", probDataset);
-                        ((ObjectNode)classificationNode).remove("dataset");
-                    }
-                }
+    /**
+     * Apply the classification cascade to an array of texts: the binary dataset/no dataset model 
+     * to all texts, then the first-level data type model and the reuse model to the texts likely
+     * introducing a dataset. 
+     * @return one classification result per text, in the same order as the input texts
+     */
+    public List<SentenceClassification> classifySentences(List<String> texts) throws Exception {
+        if (texts == null || texts.size() == 0)
+            return new ArrayList<>();
+        if (classificationCache == null)
+            return countClassifications(classifyCascade(texts));
+
+        // only the sentences absent from the cache go through the models
+        List<SentenceClassification> results = new ArrayList<>(texts.size());
+        List<String> missingTexts = new ArrayList<>();
+        List<Integer> missingIndexes = new ArrayList<>();
+        for(int i=0; i<texts.size(); i++) {
+            SentenceClassification cached = classificationCache.get(texts.get(i));
+            results.add(cached);
+            if (cached == null) {
+                missingTexts.add(texts.get(i));
+                missingIndexes.add(i);
             }
         }
-        //System.out.println("cascaded classify: " + cascaded_texts.size() + " sentences");
-        String cascaded_json = null;
-        JsonNode rootCascaded = null;
-
-        if (cascaded_texts.size() > 0) {
-            cascaded_json = classifierFirstLevel.classify(cascaded_texts);
-            if (cascaded_json != null && cascaded_json.length() > 0)
-                rootCascaded = mapper.readTree(cascaded_json);
+
+        if (missingTexts.size() > 0) {
+            List<SentenceClassification> missingResults = classifyCascade(missingTexts);
+            for(int i=0; i<missingResults.size(); i++) {
+                SentenceClassification result = missingResults.get(i);
+                results.set(missingIndexes.get(i), result);
+                classificationCache.put(result.getText(), result);
+            }
         }
 
-        if (rootCascaded == null) {
-            return this.shadowModelName(the_json);
+        // in case of model failure, some sentences might have no result
+        results.removeIf(Objects::isNull);
+        return countClassifications(results);
+    }
+
+    /**
+     * Expose the effectiveness of the sentence classification cache with the other metrics
+     */
+    private static void registerCacheMetrics(final SentenceClassificationCache cache) {
+        String prefix = DataseerMetrics.SENTENCE_CACHE;
+        DataseerMetrics.gauge(prefix + ".hits", (Gauge<Long>) cache::getHitCount);
+        DataseerMetrics.gauge(prefix + ".disk-hits", (Gauge<Long>) cache::getDiskHitCount);
+        DataseerMetrics.gauge(prefix + ".misses", (Gauge<Long>) cache::getMissCount);
+        DataseerMetrics.gauge(prefix + ".evictions", (Gauge<Long>) cache::getEvictionCount);
+        DataseerMetrics.gauge(prefix + ".size", (Gauge<Long>) cache::size);
+        DataseerMetrics.gauge(prefix + ".disk-entries", (Gauge<Integer>) cache::getDiskEntries);
+        DataseerMetrics.gauge(prefix + ".disk-bytes", (Gauge<Long>) cache::getDiskBytes);
+    }
+
+    private static List<SentenceClassification> countClassifications(List<SentenceClassification> results) {
+        int nbPositive = 0;
+        for(SentenceClassification result : results) {
+            if (isDatasetSentence(result))
+                nbPositive++;
         }
+        DataseerMetrics.counter(DataseerMetrics.SENTENCES_CLASSIFIED).inc(results.size());
+        DataseerMetrics.counter(DataseerMetrics.SENTENCES_POSITIVE).inc(nbPositive);
+        return results;
+    }
+
+    private List<SentenceClassification> classifyCascade(List<String> texts) throws Exception {
+        List<SentenceClassification> results = new ArrayList<>();
+        logger.info("classify: " + texts.size() + " sentence(s)");
 
-        // application of the reuse model on the positive texts
-        String cascaded_reuse_json = null;
-        JsonNode rootReuseCascaded = null;
-        if (cascaded_texts.size() > 0) {
-            cascaded_reuse_json = classifierReuse.classify(cascaded_texts);
-            if (cascaded_reuse_json != null && cascaded_reuse_json.length() > 0)
-                rootReuseCascaded = mapper.readTree(cascaded_reuse_json);
+        ClassifierResults binaryResults = classify("binary", classifierBinary, schedulerBinary, texts);
+        if (binaryResults.size() != texts.size()) {
+            logger.warn("Unexpected number of binary classification results: " + binaryResults.size() + 
+                ", expected: " + texts.size());
         }
+        int datasetIndex = binaryResults.getLabelIndex("dataset");
+        int noDatasetIndex = binaryResults.getLabelIndex("no_dataset");
 
-        StringBuilder builder = new StringBuilder();
-        builder.append("{\n\t\"model\": \"dataseer\",\n\t\"software\": \"DeLFT\",\n\t\"date\": \"" + 
-            this.getISO8601Date() + "\",\n\t\"classifications\": [");
-
-        boolean first = true;
-        // second pass to inject additional results
-        if (root != null && rootCascaded != null && rootReuseCascaded != null) {
-            JsonNode classificationsNode = root.findPath("classifications");
-            JsonNode classificationsCascadedNode = rootCascaded.findPath("classifications");
-            JsonNode classificationsReuseCascadedNode = rootReuseCascaded.findPath("classifications");
-            if ((classificationsNode != null) && (!classificationsNode.isMissingNode()) && 
-                (classificationsCascadedNode != null) && (!classificationsCascadedNode.isMissingNode()) &&
-                (classificationsReuseCascadedNode != null) && (!classificationsReuseCascadedNode.isMissingNode())) {
-                Iterator<JsonNode> ite = classificationsNode.elements();
-                Iterator<JsonNode> iteCascaded = classificationsCascadedNode.elements();
-                Iterator<JsonNode> iteReuseCascaded = classificationsReuseCascadedNode.elements();
-                while (ite.hasNext()) {
-                    JsonNode classificationNode = ite.next();
-                    JsonNode datasetNode = classificationNode.findPath("has_dataset");
-                    JsonNode noDatasetNode = classificationNode.findPath("no_dataset");
-
-                    if ((datasetNode != null) && (!datasetNode.isMissingNode()) &&
-                        (noDatasetNode != null) && (!noDatasetNode.isMissingNode()) ) {
-                        double probDataset = datasetNode.asDouble();
-                        double probNoDataset = noDatasetNode.asDouble();
-
-                        //System.out.println(probDataset + " " + probNoDataset);
-                        if (probDataset > probNoDataset) {
-                            JsonNode textNode = classificationNode.findPath("text");
-                            if (iteCascaded.hasNext()) {
-                                JsonNode classificationCascadedNode = iteCascaded.next();
-                                // inject dataset/no_dataset probabilities as extra-information relevant for post--processing
-                                ((ObjectNode)classificationCascadedNode).put("has_dataset", probDataset);
-                                ((ObjectNode)classificationCascadedNode).put("no_dataset", probNoDataset);
-
-                                if (iteReuseCascaded.hasNext()) {
-                                    JsonNode classificationReuseCascadedNode = iteReuseCascaded.next();
-                                    JsonNode reuseNode = classificationReuseCascadedNode.findPath("reuse");
-                                    JsonNode noReuseNode = classificationReuseCascadedNode.findPath("not_reuse");
-
-                                    if ((reuseNode != null) && (!reuseNode.isMissingNode()) &&
-                                        (noReuseNode != null) && (!noReuseNode.isMissingNode()) ) {
-                                        double probReuse = reuseNode.asDouble();
-                                        double probNoReuse = noReuseNode.asDouble();
-
-                                        if (probReuse > probNoReuse) {
-                                            ((ObjectNode)classificationCascadedNode).put("reuse", true);
-                                        } else {
-                                            ((ObjectNode)classificationCascadedNode).put("reuse", false);
-                                        }
-                                    }
-                                }
+        // first pass to select texts to be cascaded to next level
+        List<String> cascaded_texts = new ArrayList<String>();
+        List<SentenceClassification> cascaded_results = new ArrayList<>();
+        for(int i=0; i<binaryResults.size() && i<texts.size(); i++) {
+            SentenceClassification result = new SentenceClassification(texts.get(i), 
+                binaryResults.getProbability(i, datasetIndex), 
+                binaryResults.getProbability(i, noDatasetIndex));
+            results.add(result);
+            if (result.hasDataset()) {
+                cascaded_texts.add(texts.get(i));
+                cascaded_results.add(result);
+            }
+        }
 
-                                if (first)
-                                    first = false;
-                                else
-                                    builder.append(",");
-                                builder.append("\n\t\t");
-                                builder.append(this.prettyPrintJsonNode(classificationCascadedNode, mapper));
-                            }
-                        } else {
-                            if (first)
-                                first = false;
-                            else
-                                builder.append(",");
-                            builder.append("\n\t\t");
-                            builder.append(this.prettyPrintJsonNode(classificationNode, mapper));
-                        }
-                    }
-                }
+        if (cascaded_texts.size() == 0)
+            return results;
+
+        // data type and reuse information for the positive texts, the two models are independent 
+        // so the reuse model can run in the cascade pool while the first-level model runs here
+        ClassifierResults firstLevelResults;
+        ClassifierResults reuseResults;
+        if (cascadeExecutor != null) {
+            Future<ClassifierResults> reuseFuture = cascadeExecutor.submit(
+                () -> classify("reuse", classifierReuse, schedulerReuse, cascaded_texts));
+            try {
+                firstLevelResults = classify("first-level", classifierFirstLevel, schedulerFirstLevel, cascaded_texts);
+            } catch(Exception e) {
+                reuseFuture.cancel(true);
+                throw e;
             }
+            try {
+                reuseResults = reuseFuture.get();
+            } catch(ExecutionException e) {
+                if (e.getCause() instanceof Exception)
+                    throw (Exception) e.getCause();
+                throw new GrobidException("Reuse classification failed", e.getCause());
+            }
+        } else {
+            firstLevelResults = classify("first-level", classifierFirstLevel, schedulerFirstLevel, cascaded_texts);
+            reuseResults = classify("reuse", classifierReuse, schedulerReuse, cascaded_texts);
         }
-        builder.append("\n\t]\n}");
 
-        if (the_json != null) {
-            // replace the model explitely used by a more general "dataseer"
-            // final beautifier
-            String finalJson = builder.toString();
-            return prettyPrintJsonString(finalJson, mapper);
+        int reuseIndex = reuseResults.getLabelIndex("reuse");
+        int notReuseIndex = reuseResults.getLabelIndex("not_reuse");
+        for(int i=0; i<cascaded_results.size() && i<firstLevelResults.size(); i++) {
+            SentenceClassification result = cascaded_results.get(i);
+            result.setDataTypes(firstLevelResults.getLabels(), firstLevelResults.getProbabilities(i));
+            if (i < reuseResults.size() && reuseIndex != -1 && notReuseIndex != -1) {
+                result.setReuse(reuseResults.getProbability(i, reuseIndex) > reuseResults.getProbability(i, notReuseIndex));
+            }
         }
-        else
-            return null;
-    }
 
-    private String shadowModelName(String the_json) {
-        if (the_json == null || the_json.trim().length() == 0)
-            return the_json;
-        the_json = the_json.replace("\"model\": \"dataseer-binary\",", "\"model\": \"dataseer\",");
-        return the_json.replace("\"model\": \"dataseer-first\",", "\"model\": \"dataseer\",");
-    } 
+        return results;
+    }
 
-    public String prettyPrintJsonNode(JsonNode jsonNode, ObjectMapper mapper) {
-        if (jsonNode == null || jsonNode.isMissingNode())
-            return null;
+    /**
+     * Call a classifier model, through its batch scheduler if micro-batching is enabled, 
+     * and record the time spent under the given stage name
+     */
+    private ClassifierResults classify(String stage, DeLFTClassifierModel model, ClassifierBatchScheduler scheduler, 
+        List<String> texts) throws Exception {
+        long start = System.nanoTime();
         try {
-            Object json = mapper.readValue(jsonNode.toString(), Object.class);
-            return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(json);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
+            if (scheduler != null)
+                return scheduler.classify(texts);
+            return ClassifierResults.fromJson(model.classify(texts));
+        } finally {
+            DataseerMetrics.classificationTimer(stage).update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 
-    public String prettyPrintJsonString(String json, ObjectMapper mapper) {
-        try {
-            Object root = mapper.readValue(json, Object.class);
-            return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(root);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
+    /**
+     * Render classification results as the JSON response of the classification service
+     */
+    public String toJson(List<SentenceClassification> classifications) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            generator.useDefaultPrettyPrinter();
+            generator.writeStartObject();
+            generator.writeStringField("model", "dataseer");
+            generator.writeStringField("software", "DeLFT");
+            generator.writeStringField("date", this.getISO8601Date());
+            generator.writeArrayFieldStart("classifications");
+            for(SentenceClassification classification : classifications) {
+                classification.writeJson(generator);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
         }
+        return writer.toString();
     }
 
     public String getISO8601Date() {
@@ -416,15 +619,16 @@ public class DataseerClassifier {
      */
     public String processTEIString(String xmlString) throws Exception {
         String tei = null;
+        if (useStreamingEnrichment()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new TEIStreamingEnricher(this, textualElements, false).enrich(xmlString, out);
+            return new String(out.toByteArray(), UTF_8);
+        }
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();           
+            DocumentBuilder builder = XMLUtilities.getDocumentBuilder(true);
             org.w3c.dom.Document document = builder.parse(new InputSource(new StringReader(xmlString)));
             //document.getDocumentElement().normalize();
             tei = processTEIDocument(document, false);
-        } catch(ParserConfigurationException e) {
-            e.printStackTrace();
         } catch(IOException e) {
             e.printStackTrace();
         } 
@@ -438,43 +642,119 @@ public class DataseerClassifier {
      */
     public String processTEI(String filePath, boolean segmentSentences, boolean avoidDomParserBug) throws Exception {
         String tei = null;
+        if (useStreamingEnrichment() && !avoidDomParserBug) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            processTEI(new File(filePath), segmentSentences, out);
+            return new String(out.toByteArray(), UTF_8);
+        }
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            tei = FileUtils.readFileToString(new File(filePath), UTF_8);
-            if (avoidDomParserBug)
+            DocumentBuilder builder = XMLUtilities.getDocumentBuilder(true);
+            org.w3c.dom.Document document = null;
+            if (avoidDomParserBug) {
+                tei = FileUtils.readFileToString(new File(filePath), UTF_8);
                 tei = avoidDomParserAttributeBug(tei);
-
-            org.w3c.dom.Document document = builder.parse(new InputSource(new StringReader(tei)));
+                document = builder.parse(new InputSource(new StringReader(tei)));
+            } else {
+                // no need to load the file content in memory, the parser reads the file directly
+                document = builder.parse(new File(filePath));
+            }
             //document.getDocumentElement().normalize();
             tei = processTEIDocument(document, segmentSentences);
             if (avoidDomParserBug)
                 tei = restoreDomParserAttributeBug(tei); 
 
-        } catch(ParserConfigurationException e) {
-            e.printStackTrace();
         } catch(IOException e) {
             e.printStackTrace();
         } 
         return tei;
     }
 
+    /**
+     * Enrich a TEI document read from a stream with Dataseer information, the stream is parsed 
+     * directly without intermediary file or string
+     * @return enriched TEI string
+     */
+    public String processTEI(InputStream inputStream, boolean segmentSentences) throws Exception {
+        DocumentBuilder builder = XMLUtilities.getDocumentBuilder(true);
+        org.w3c.dom.Document document = builder.parse(new InputSource(inputStream));
+        return processTEIDocument(document, segmentSentences);
+    }
+
+    /**
+     * Enrich a TEI file with Dataseer information with the streaming pipeline, without building 
+     * a DOM of the whole document, the enriched TEI is written in UTF-8 to the output stream
+     */
+    public void processTEI(File file, boolean segmentSentences, OutputStream out) throws Exception {
+        if (this.dataseerConfiguration.getIncrementalEnrichment()) {
+            // the previous enrichment is only available with the DOM
+            out.write(processTEIDocument(parseTEI(file), segmentSentences).getBytes(UTF_8));
+            return;
+        }
+        new TEIStreamingEnricher(this, textualElements, segmentSentences).enrich(file, out);
+    }
+
+    /**
+     * First pass of the streaming pipeline on a TEI file: the sentences are classified, the 
+     * enriched TEI is written afterwards by the returned enrichment. Only available if 
+     * {@link #useStreamingEnrichment()}.
+     */
+    public TEIStreamingEnricher.PreparedEnrichment prepareTEI(File file, boolean segmentSentences) throws Exception {
+        return new TEIStreamingEnricher(this, textualElements, segmentSentences).prepare(file);
+    }
+
+    /**
+     * The incremental enrichment relies on the DOM, it has priority over the streaming pipeline
+     */
+    public boolean useStreamingEnrichment() {
+        return this.dataseerConfiguration.getStreamingEnrichment() && 
+            !this.dataseerConfiguration.getIncrementalEnrichment();
+    }
+
     /**
      * Enrich a TEI document with Dataseer information
      * @return enriched TEI string
      */
     public String processTEIDocument(org.w3c.dom.Document document, boolean segmentSentences) throws Exception {
         String tei = null;
-        Element root = document.getDocumentElement();
         if (segmentSentences)
-            segment(document, root);
+            segmentDocument(document);
         // augment sentences with dataseer classification information
-        enrich(document, root);
+        enrichDocument(document);
         tei = serialize(document, null);
         return tei;
     }
 
+    /**
+     * Segment the textual elements of a TEI document into sentences
+     */
+    public void segmentDocument(org.w3c.dom.Document document) {
+        segment(document, document.getDocumentElement());
+    }
+
+    /**
+     * Classify the sentences of a segmented TEI document and add the Dataseer information to it
+     */
+    public void enrichDocument(org.w3c.dom.Document document) {
+        enrich(document, document.getDocumentElement());
+    }
+
+    /**
+     * Parse a TEI file into a DOM
+     */
+    public org.w3c.dom.Document parseTEI(File teiFile) throws Exception {
+        return XMLUtilities.getDocumentBuilder(true).parse(teiFile);
+    }
+
+    /**
+     * Convert a publisher XML file (JATS/NLM, etc.) into a TEI DOM with Pub2TEI
+     */
+    public org.w3c.dom.Document convertJATS(File xmlFile) throws Exception {
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(xmlFile))) {
+            return Pub2TEITransformer.getInstance(this.dataseerConfiguration.getPub2TEIPath())
+                .transformToDocument(inputStream);
+        }
+    }
+
     /**
      * Process a JATS document and enrich with Dataseer information as a TEI document.
      * Transformation of the JATS/NLM document is realised thanks to Pub2TEI 
@@ -486,155 +766,41 @@ public class DataseerClassifier {
         File file = new File(filePath);
         if (!file.exists())
             return null;
-        String fileName = file.getName();
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            return processJATS(inputStream);
+        }
+    }
+
+    /**
+     * Process a JATS document read from a stream and enrich with Dataseer information as a TEI 
+     * document. The Pub2TEI transformation runs in the current JVM and produces directly the DOM 
+     * to be enriched, without intermediary file.
+     * 
+     * @return enriched TEI string
+     */
+    public String processJATS(InputStream inputStream) throws Exception {
         String tei = null;
-        String newFilePath = null;
         try {
-            File tmpFile = GrobidProperties.getInstance().getTempPath();
-            newFilePath = ArticleUtilities.applyPub2TEI(filePath, 
-                tmpFile.getPath() + "/" + fileName.replace(".xml", ".tei.xml"), 
-                this.dataseerConfiguration.getPub2TEIPath());
-            //System.out.println(newFilePath);
-
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            tei = FileUtils.readFileToString(new File(newFilePath), UTF_8);
-            //if (avoidDomParserBug)
-            //    tei = avoidDomParserAttributeBug(tei);
-
-            org.w3c.dom.Document document = builder.parse(new InputSource(new StringReader(tei)));
-            //document.getDocumentElement().normalize();
+            org.w3c.dom.Document document = Pub2TEITransformer.getInstance(this.dataseerConfiguration.getPub2TEIPath())
+                .transformToDocument(inputStream);
             tei = processTEIDocument(document, true);
-            //if (avoidDomParserBug)
-            //    tei = restoreDomParserAttributeBug(tei); 
-
-        } catch(ParserConfigurationException e) {
-            e.printStackTrace();
-        } catch(IOException e) {
-            e.printStackTrace();
-        } finally {
-            if (newFilePath != null) {
-                File newFile = new File(newFilePath);
-                IOUtilities.removeTempFile(newFile);
-            }
+        } catch(TransformerException e) {
+            logger.error("XML transformation failed", e);
         }
         return tei;
     }
 
     private void segment(org.w3c.dom.Document doc, Node node) {
-        final NodeList children = node.getChildNodes();
-        for (int i = 0; i < children.getLength(); i++) {
-            final Node n = children.item(i);
-            if ( (n.getNodeType() == Node.ELEMENT_NODE) && 
-                 (textualElements.contains(n.getNodeName())) ) {
-                // text content
-                //String text = n.getTextContent();
-                StringBuffer textBuffer = new StringBuffer();
-                NodeList childNodes = n.getChildNodes();
-                for(int y=0; y<childNodes.getLength(); y++) {
-                    textBuffer.append(serialize(doc, childNodes.item(y)));
-                    textBuffer.append(" ");
-                }
-                String text = textBuffer.toString();
-                //String theSentences[] = detector.sentDetect(text);
-                List<OffsetPosition> theSentenceBoundaries = SentenceUtilities.getInstance().runSentenceDetection(text);
-
-                // we're making a first pass to ensure that there is no element broken by the segmentation
-                List<String> sentences = new ArrayList<String>();
-                List<String> toConcatenate = new ArrayList<String>();
-                for(OffsetPosition sentPos : theSentenceBoundaries) {
-                    //System.out.println("new chunk: " + sent);
-                    String sent = text.substring(sentPos.start, sentPos.end);
-                    String newSent = sent;
-                    if (toConcatenate.size() != 0) {
-                        StringBuffer conc = new StringBuffer();
-                        for(String concat : toConcatenate) {
-                            conc.append(concat);
-                            conc.append(" ");
-                        }
-                        newSent = conc.toString() + sent;
-                    }
-                    String fullSent = "<s xmlns=\"http://www.tei-c.org/ns/1.0\">" + newSent + "</s>";
-                    boolean fail = false;
-                    try {
-                        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-                        factory.setNamespaceAware(true);
-                        org.w3c.dom.Document d = factory.newDocumentBuilder().parse(new InputSource(new StringReader(fullSent)));                
-                    } catch(Exception e) {
-                        fail = true;
-                    }
-                    if (fail)
-                        toConcatenate.add(sent);
-                    else {
-                        sentences.add(fullSent);
-                        toConcatenate = new ArrayList<String>();
-                    }
-                }
-
-                List<Node> newNodes = new ArrayList<Node>();
-                for(String sent : sentences) {
-                    //System.out.println("-----------------");
-                    sent = sent.replace("\n", " ");
-                    sent = sent.replaceAll("( )+", " ");
-                
-                    //Element sentenceElement = doc.createElement("s");                        
-                    //sentenceElement.setTextContent(sent);
-                    //newNodes.add(sentenceElement);
-
-                    //System.out.println(sent);  
-
-                    try {
-                        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-                        factory.setNamespaceAware(true);
-                        org.w3c.dom.Document d = factory.newDocumentBuilder().parse(new InputSource(new StringReader(sent)));
-                        //d.getDocumentElement().normalize();
-                        Node newNode = doc.importNode(d.getDocumentElement(), true);
-                        newNodes.add(newNode);
-                        //System.out.println(serialize(doc, newNode));
-                    } catch(Exception e) {
-
-                    }
-                }
-
-                // remove old nodes 
-                while (n.hasChildNodes())
-                    n.removeChild(n.getFirstChild());
-
-                // and add new ones
-
-                // if we have a figDesc, we need to inject div/p nodes for dataseer-ml support
-                if (n.getNodeName().equals("figDesc")) {
-                    Element theDiv = doc.createElementNS("http://www.tei-c.org/ns/1.0", "div");
-                    Element theP = doc.createElementNS("http://www.tei-c.org/ns/1.0", "p");
-                    for(Node theNode : newNodes) 
-                        theP.appendChild(theNode);
-                    theDiv.appendChild(theP);
-                    n.appendChild(theDiv);
-                } else {
-                    for(Node theNode : newNodes) 
-                        n.appendChild(theNode);
-                }
-
-            } else if (n.getNodeType() == Node.ELEMENT_NODE) {
-                segment(doc, (Element) n);
-            }
+        try (Timer.Context context = DataseerMetrics.timer(DataseerMetrics.SEGMENTATION).time()) {
+            sentenceSegmenter.segment(doc, node);
         }
     }
 
     private void enrich(org.w3c.dom.Document doc, Node node) {
-        ObjectMapper mapper = new ObjectMapper();
-        Map<String, JsonNode> mapSentenceJsonResult = new TreeMap<String, JsonNode>();
+        Map<String, SentenceClassification> mapSentenceResult = new TreeMap<String, SentenceClassification>();
 
-        // build the list of sections
-        List<Boolean> relevantSections = null;
-        List<String> segments = new ArrayList<String>();
-        List<String> sectionTypes = new ArrayList<String>();
-        List<Integer> nbDatasets =new ArrayList<Integer>();
-        List<String> datasetTypes = new ArrayList<String>();
-
-        // map dataset id to its data type and data subtype
-        Map<String, Pair<String,String>> datasetMap = new TreeMap<>();
+        // map dataset id to its predicted data type
+        Map<String, String> datasetMap = new TreeMap<>();
 
         // map a dataInstance id to its dataset id
         Map<String, String> dataInstanceMap = new TreeMap<>();
@@ -645,14 +811,36 @@ public class DataseerClassifier {
         // map a dataInstance id to its reuse information in context
         Map<String, Boolean> dataInstanceReuseMap = new TreeMap<>();
 
+        // in incremental mode, the sentences unchanged since a previous enrichment are not classified again
+        IncrementalEnrichment incremental = null;
+        if (this.dataseerConfiguration.getIncrementalEnrichment())
+            incremental = new IncrementalEnrichment(doc, getModelVersion());
+
         // as a preprocess, we put an identifier to every sentences (if they don't have already one)
         NodeList sentenceList = doc.getElementsByTagName("s");
+        Set<String> sentenceIds = new HashSet<>();
+        if (incremental != null) {
+            // new sentences of an already enriched document must not reuse an existing identifier
+            for (int i = 0; i < sentenceList.getLength(); i++) {
+                Element sentenceElement = (Element) sentenceList.item(i);
+                if (sentenceElement.hasAttribute("xml:id"))
+                    sentenceIds.add(sentenceElement.getAttribute("xml:id"));
+            }
+        }
         for (int i = 0; i < sentenceList.getLength(); i++) {
             Element sentenceElement = (Element) sentenceList.item(i);
-            if (!sentenceElement.hasAttribute("xml:id"))
-                sentenceElement.setAttribute("xml:id", "sentence-"+i);
+            if (!sentenceElement.hasAttribute("xml:id")) {
+                if (incremental != null)
+                    sentenceElement.setAttribute("xml:id", IncrementalEnrichment.newSentenceId(sentenceIds, i));
+                else
+                    sentenceElement.setAttribute("xml:id", "sentence-"+i);
+            }
         }
+        List<Element> enrichedSentences = new ArrayList<>();
 
+        // build the list of sections
+        List<DocumentSection> sections = new ArrayList<DocumentSection>();
+        List<Element> sectionElements = new ArrayList<Element>();
         NodeList sectionList = doc.getElementsByTagName("div");
         for (int i = 0; i < sectionList.getLength(); i++) {
             Element sectionElement = (Element) sectionList.item(i);
@@ -664,124 +852,51 @@ public class DataseerClassifier {
                     continue;
             }
 
+            DocumentSection section = new DocumentSection();
+
             // head element (unique, but not mandatory)
             Element headElement = this.getFirstDirectChild(sectionElement, "head");
-            if (headElement != null) {
-                String localTextContent = headElement.getTextContent();
-                if (localTextContent == null || localTextContent.length() == 0) 
-                    continue;
-
-                segments.add(localTextContent);
-                sectionTypes.add("head");
-                nbDatasets.add(0);
-                datasetTypes.add("no_dataset");
-            }
+            if (headElement != null) 
+                section.setHead(headElement.getTextContent());
 
             // the <p> elements under <div> only, and ignoring <abstract>
             for(Node child = sectionElement.getFirstChild(); child != null; child = child.getNextSibling()) {
                 if (child instanceof Element && "p".equals(child.getNodeName())) {
                     Element childElement = (Element)child;
-                    String localTextContent = childElement.getTextContent();
-                    if (localTextContent == null || localTextContent.length() == 0) 
-                        continue;
-                    segments.add(localTextContent);
-                    sectionTypes.add("p");
 
                     // get the sentences elements
                     List<String> localSentences = new ArrayList<String>();
                     for(Node subchild = childElement.getFirstChild(); subchild != null; subchild = subchild.getNextSibling()) {
                         if (subchild instanceof Element && "s".equals(subchild.getNodeName())) {
                             Element subchildElement = (Element)subchild;
-                            localSentences.add(subchildElement.getTextContent());
-                        }
-                    }
-                    int nbLocalDatasets = 0;
-                    String mainDataset = null;
-                    try {
-                        String localJson = this.classify(localSentences);
-                        //System.out.println(localJson);
-
-                        List<Boolean> datasetSentences = new ArrayList<Boolean>();
-                        if (localJson != null && localJson.length() > 0) {
-                            JsonNode root = mapper.readTree(localJson);
-                            JsonNode classificationsNode = root.findPath("classifications");
-                            if ((classificationsNode != null) && (!classificationsNode.isMissingNode())) {
-                                Iterator<JsonNode> ite = classificationsNode.elements();
-                                while (ite.hasNext()) {
-                                    JsonNode classificationNode = ite.next();
-                                    JsonNode datasetNode = classificationNode.findPath("has_dataset");
-                                    JsonNode noDatasetNode = classificationNode.findPath("no_dataset");
-                                    JsonNode textNode = classificationNode.findPath("text");
-
-                                    Boolean localResult = new Boolean(false);
-                                    if ((datasetNode != null) && (!datasetNode.isMissingNode()) &&
-                                        (noDatasetNode != null) && (!noDatasetNode.isMissingNode()) ) {
-                                        double probDataset = datasetNode.asDouble();
-                                        double probNoDataset = noDatasetNode.asDouble();
-
-                                        // we consider enrichment only in the case a dataset is more likely
-                                        if (probDataset > probNoDataset && probDataset > 0.9)
-                                            nbLocalDatasets++;
-
-                                        // save results
-                                        mapSentenceJsonResult.put(textNode.asText(), classificationNode);
-                                    }
-                                }
+                            String localSentence = subchildElement.getTextContent();
+                            localSentences.add(localSentence);
+                            if (incremental != null) {
+                                enrichedSentences.add(subchildElement);
+                                SentenceClassification previous = incremental.prepare(subchildElement, localSentence);
+                                if (previous != null)
+                                    mapSentenceResult.put(localSentence, previous);
                             }
                         }
-                    } catch(Exception e) {
-                        e.printStackTrace();
                     }
-
-                    nbDatasets.add(nbLocalDatasets);
-                    datasetTypes.add("no_dataset");
+                    section.addParagraph(childElement.getTextContent(), localSentences);
                 }
             }
+
+            sections.add(section);
+            sectionElements.add(sectionElement);
         }
 
-        relevantSections = DataseerParser.getInstance().processingText(segments, sectionTypes, nbDatasets, datasetTypes);
+        this.classifySections(sections, mapSentenceResult);
 
-        sectionList = doc.getElementsByTagName("div");
         int dataSetId = 1;
-        int relevantSectionIndex = 0;
-        for (int i = 0; i < sectionList.getLength(); i++) {
-            Element sectionElement = (Element) sectionList.item(i);
-            boolean relevantSection = false;
-
-            // check that the father is not <abstract>
-            Node fatherNode = sectionElement.getParentNode();
-            if (fatherNode != null) {
-                if ("abstract".equals(fatherNode.getNodeName()) || "figDesc".equals(fatherNode.getNodeName()))
-                    continue;
-            }
-
-            // head element (unique, but not mandatory)
-            Element headElement = this.getFirstDirectChild(sectionElement, "head");
-            if (headElement != null) {
-                String localTextContent = headElement.getTextContent();
-                if (localTextContent == null || localTextContent.length() == 0) 
-                    continue;
-                relevantSection = relevantSections.get(relevantSectionIndex);
-                relevantSectionIndex++;
-            }
-
-            // the <p> elements 
-            for(Node child = sectionElement.getFirstChild(); child != null; child = child.getNextSibling()) {
-                if (child instanceof Element && "p".equals(child.getNodeName())) {
-                    Element childElement = (Element)child;
-                    String localTextContent = childElement.getTextContent();
-                    if (localTextContent == null || localTextContent.length() == 0) 
-                        continue;
-                    boolean localRelevantSection = relevantSections.get(relevantSectionIndex);
-                    if (localRelevantSection)
-                        relevantSection = true;
-                    relevantSectionIndex++;
-                }
-            }
-
+        // number of datasets in the enriched document
+        int nbDatasets = 0;
+        for (int i = 0; i < sections.size(); i++) {
             // do we consider this section?
-            if (!relevantSection)
+            if (!sections.get(i).isRelevant())
                 continue;
+            Element sectionElement = sectionElements.get(i);
 
             // if we consider this section, we get back the classification of the sentences present in it and
             // update the <div> level accordingly
@@ -794,62 +909,50 @@ public class DataseerClassifier {
                             Element subchildElement = (Element)subchild;
                             
                             String localSentence = subchildElement.getTextContent();
-                            JsonNode classificationNode = mapSentenceJsonResult.get(localSentence);
-
-                            if (classificationNode != null && (!classificationNode.isMissingNode())) {
-                                JsonNode datasetNode = classificationNode.findPath("has_dataset");
-                                JsonNode noDatasetNode = classificationNode.findPath("no_dataset");
-
-                                if ((datasetNode != null) && (!datasetNode.isMissingNode()) &&
-                                    (noDatasetNode != null) && (!noDatasetNode.isMissingNode()) ) {
-                                    double probDataset = datasetNode.asDouble();
-                                    double probNoDataset = noDatasetNode.asDouble();
-
-                                    // we consider enrichment only in the case a dataset is more likely
-                                    if (probDataset > probNoDataset && probDataset > 0.9) {
-                                        // we get the best dataset type Prediction
-                                        Pair<String, Double> bestDataTypeWithProb = this.getBestDataType(classificationNode);
-                                        boolean isReuse = this.getReuseInfo(classificationNode);
-                                        if (bestDataTypeWithProb != null) {
-                                            // annotation will look like this: <s id="dataset-1" type="Generic data">
-                                            // or if existing dataset: corresp=\"#dataset- + dataSetId\"
-                                            Element sentenceElement = subchildElement;
-
-                                            /*sentenceElement.setAttribute("id","dataset-" + dataSetId);
-                                            sentenceElement.setAttribute("type", bestDataTypeWithProb.getLeft());
-                                            sentenceElement.setAttribute("cert", bestDataTypeWithProb.getRight().toString());
-                                            if (isReuse) {
-                                                sentenceElement.setAttribute("reuse", "true");
-                                            } else {
-                                                sentenceElement.setAttribute("reuse", "false");
-                                            }*/
-
-                                            sentenceElement.setAttribute("corresp","#dataInstance-"+dataSetId);
-
-                                            // update dataset information  maps
-                                            datasetMap.put("dataset-"+dataSetId, Pair.of(bestDataTypeWithProb.getLeft(), null));
-                                            dataInstanceMap.put("dataInstance-"+dataSetId, "dataset-"+dataSetId);
-                                            dataInstanceScoreMap.put("dataInstance-"+dataSetId, bestDataTypeWithProb.getRight());
-                                            dataInstanceReuseMap.put("dataInstance-"+dataSetId, new Boolean(isReuse));
-                                            dataSetId++;
-
-                                            // we also need to add a dataseer subtype attribute to the parent <div>
-                                            Node currentNode = sentenceElement;
-                                            while(currentNode != null) {
-                                                currentNode = currentNode.getParentNode();
-                                                if (currentNode != null && 
-                                                    currentNode instanceof Element &&
-                                                    !(currentNode.getParentNode() instanceof Document) && 
-                                                    ((Element)currentNode).getTagName().equals("div")) {
-                                                    ((Element)currentNode).setAttribute("subtype", "dataseer");
-                                                    currentNode = null;
-                                                }
-
-                                                if (currentNode != null && (currentNode.getParentNode() instanceof Document))
-                                                    currentNode = null;
-                                            }
-                                        }
-                                    }
+                            SentenceClassification classification = mapSentenceResult.get(localSentence);
+
+                            if (incremental != null && incremental.isUnchanged(subchildElement)) {
+                                // the previous annotation and its list entries are kept as they are
+                                if (incremental.restore(subchildElement)) {
+                                    markDataseerSection(subchildElement);
+                                    nbDatasets++;
+                                }
+                                continue;
+                            }
+
+                            // we consider enrichment only in the case a dataset is more likely
+                            if (classification != null && isDatasetSentence(classification)) {
+                                // we get the best dataset type Prediction
+                                Pair<String, Double> bestDataTypeWithProb = classification.getBestDataType();
+                                boolean isReuse = classification.isReuse();
+                                if (bestDataTypeWithProb != null) {
+                                    // annotation will look like this: <s id="dataset-1" type="Generic data">
+                                    // or if existing dataset: corresp=\"#dataset- + dataSetId\"
+                                    Element sentenceElement = subchildElement;
+
+                                    /*sentenceElement.setAttribute("id","dataset-" + dataSetId);
+                                    sentenceElement.setAttribute("type", bestDataTypeWithProb.getLeft());
+                                    sentenceElement.setAttribute("cert", bestDataTypeWithProb.getRight().toString());
+                                    if (isReuse) {
+                                        sentenceElement.setAttribute("reuse", "true");
+                                    } else {
+                                        sentenceElement.setAttribute("reuse", "false");
+                                    }*/
+
+                                    if (incremental != null)
+                                        dataSetId = incremental.nextId();
+                                    sentenceElement.setAttribute("corresp","#dataInstance-"+dataSetId);
+
+                                    // update dataset information  maps
+                                    datasetMap.put("dataset-"+dataSetId, bestDataTypeWithProb.getLeft());
+                                    dataInstanceMap.put("dataInstance-"+dataSetId, "dataset-"+dataSetId);
+                                    dataInstanceScoreMap.put("dataInstance-"+dataSetId, bestDataTypeWithProb.getRight());
+                                    dataInstanceReuseMap.put("dataInstance-"+dataSetId, new Boolean(isReuse));
+                                    dataSetId++;
+                                    nbDatasets++;
+
+                                    // we also need to add a dataseer subtype attribute to the parent <div>
+                                    markDataseerSection(sentenceElement);
                                 }
                             }
                         }
@@ -858,6 +961,16 @@ public class DataseerClassifier {
             }
         }
 
+        DataseerMetrics.histogram(DataseerMetrics.DOCUMENT_DATASETS).update(nbDatasets);
+
+        if (incremental != null) {
+            for (Element sentenceElement : enrichedSentences) {
+                String sentence = sentenceElement.getTextContent();
+                incremental.updateHash(sentenceElement, sentence, mapSentenceResult.get(sentence));
+            }
+            incremental.removeObsoleteEntries();
+        }
+
         // get <encodingDesc> path - normally it is always there - or create it 
         NodeList encodingDescList = doc.getElementsByTagName("encodingDesc");
         Element encodingDescElement = null;
@@ -881,33 +994,35 @@ public class DataseerClassifier {
 
         // inject the dataset list under <encodingDesc>
         if (!datasetMap.isEmpty()) {
-            Element listElement = doc.createElementNS("http://www.tei-c.org/ns/1.0", "list");
-            listElement.setAttribute("type", "dataset");
+            // in incremental mode, the new entries are added to the existing list
+            Element listElement = (incremental != null) ? incremental.getDatasetList() : null;
+            if (listElement == null) {
+                listElement = doc.createElementNS("http://www.tei-c.org/ns/1.0", "list");
+                listElement.setAttribute("type", "dataset");
+                encodingDescElement.appendChild(listElement);
+            }
 
-            for (Map.Entry<String, Pair<String,String>> entry : datasetMap.entrySet()) {
+            for (Map.Entry<String, String> entry : datasetMap.entrySet()) {
                 Element datasetNode = doc.createElementNS("http://www.tei-c.org/ns/1.0", "dataset");
                 datasetNode.setAttribute("xml:id", entry.getKey());
 
-                Pair<String,String> theDataTypes = entry.getValue();
-
-                if (theDataTypes.getLeft() != null) {
-                    datasetNode.setAttribute("type", theDataTypes.getLeft());
-                }
-
-                if (theDataTypes.getRight() != null) {
-                    datasetNode.setAttribute("subtype", theDataTypes.getRight());
+                // type, subtype and related attributes from the taxonomy of data types
+                for (Map.Entry<String, String> attribute : getDatasetAttributes(entry.getValue()).entrySet()) {
+                    datasetNode.setAttribute(attribute.getKey(), attribute.getValue());
                 }
 
                 listElement.appendChild(datasetNode);
             }
-
-            encodingDescElement.appendChild(listElement);
         }
 
         if (!dataInstanceMap.isEmpty()) {
             // inject the dataInstance list under <encodingDesc>
-            Element listElement2 = doc.createElementNS("http://www.tei-c.org/ns/1.0", "list");
-            listElement2.setAttribute("type", "dataInstance");
+            Element listElement2 = (incremental != null) ? incremental.getDataInstanceList() : null;
+            if (listElement2 == null) {
+                listElement2 = doc.createElementNS("http://www.tei-c.org/ns/1.0", "list");
+                listElement2.setAttribute("type", "dataInstance");
+                encodingDescElement.appendChild(listElement2);
+            }
 
             for (Map.Entry<String, String> entry : dataInstanceMap.entrySet()) {
                 Element dataInstanceNode = doc.createElementNS("http://www.tei-c.org/ns/1.0", "dataInstance");
@@ -927,11 +1042,235 @@ public class DataseerClassifier {
 
                 listElement2.appendChild(dataInstanceNode);
             }
+        }
+    }
+
+    /**
+     * Add a dataseer subtype attribute to the <div> containing a sentence introducing a dataset
+     */
+    private static void markDataseerSection(Element sentenceElement) {
+        Node currentNode = sentenceElement;
+        while(currentNode != null) {
+            currentNode = currentNode.getParentNode();
+            if (currentNode != null && 
+                currentNode instanceof Element &&
+                !(currentNode.getParentNode() instanceof Document) && 
+                ((Element)currentNode).getTagName().equals("div")) {
+                ((Element)currentNode).setAttribute("subtype", "dataseer");
+                currentNode = null;
+            }
+
+            if (currentNode != null && (currentNode.getParentNode() instanceof Document))
+                currentNode = null;
+        }
+    }
+
+    /**
+     * Classify the sentences of the sections, then apply the section labelling model to select the 
+     * sections considered as data-related, which are marked as relevant. Classification results are
+     * stored in the given map, indexed by sentence text. Sentences already present in the map (e.g. 
+     * unchanged since a previous enrichment) are not classified again.
+     */
+    void classifySections(List<? extends DocumentSection> sections, Map<String, SentenceClassification> mapSentenceResult) {
+        List<String> segments = new ArrayList<String>();
+        List<String> sectionTypes = new ArrayList<String>();
+        List<Integer> nbDatasets =new ArrayList<Integer>();
+        List<String> datasetTypes = new ArrayList<String>();
+
+        // in document-level mode, sentences are first collected for the whole document and classified
+        // together after the section walk, we keep for each paragraph its segment index and its sentences
+        boolean documentLevel = this.dataseerConfiguration.getDocumentLevelClassification();
+        List<String> documentSentences = new ArrayList<String>();
+        List<Integer> paragraphSegmentIndexes = new ArrayList<Integer>();
+        List<List<String>> paragraphSentences = new ArrayList<List<String>>();
+        // offsets in documentSentences where the sentences of a paragraph start
+        TreeSet<Integer> paragraphOffsets = new TreeSet<Integer>();
+
+        for(DocumentSection section : sections) {
+            if (section.isIgnored())
+                continue;
+
+            if (section.hasHead()) {
+                segments.add(section.getHead());
+                sectionTypes.add("head");
+                nbDatasets.add(0);
+                datasetTypes.add("no_dataset");
+            }
+
+            for(int j=0; j<section.getParagraphs().size(); j++) {
+                String localTextContent = section.getParagraphs().get(j);
+                if (localTextContent == null || localTextContent.length() == 0) 
+                    continue;
+                segments.add(localTextContent);
+                sectionTypes.add("p");
+
+                List<String> localSentences = section.getParagraphSentences().get(j);
+                if (documentLevel) {
+                    // the number of datasets will be set once the whole document is classified
+                    paragraphSegmentIndexes.add(nbDatasets.size());
+                    paragraphSentences.add(localSentences);
+                    paragraphOffsets.add(documentSentences.size());
+                    documentSentences.addAll(unclassifiedSentences(localSentences, mapSentenceResult));
+                    nbDatasets.add(0);
+                    datasetTypes.add("no_dataset");
+                    continue;
+                }
+
+                try {
+                    this.storeClassifications(this.classifySentences(
+                        unclassifiedSentences(localSentences, mapSentenceResult)), mapSentenceResult);
+                } catch(Exception e) {
+                    e.printStackTrace();
+                }
+
+                nbDatasets.add(this.countDatasetSentences(localSentences, mapSentenceResult));
+                datasetTypes.add("no_dataset");
+            }
+        }
+
+        if (documentLevel && documentSentences.size() > 0) {
+            // each stage of the cascade is applied once per chunk of sentences, whatever the paragraph
+            int batchSize = this.dataseerConfiguration.getClassificationBatchSize();
+            if (batchSize <= 0)
+                batchSize = documentSentences.size();
+            for(int start=0; start < documentSentences.size(); start += batchSize) {
+                int end = Math.min(start + batchSize, documentSentences.size());
+                try {
+                    this.storeClassifications(this.classifySentences(documentSentences.subList(start, end)), 
+                        mapSentenceResult);
+                } catch(Exception e) {
+                    // as in the paragraph-level mode, a failure only loses the failing paragraph
+                    logger.warn("Classification of the sentences " + start + " to " + end + 
+                        " of the document failed, retrying paragraph by paragraph", e);
+                    classifyByParagraph(documentSentences, start, end, paragraphOffsets, mapSentenceResult);
+                }
+            }
+
+            // map back the results to the paragraphs
+            for(int j=0; j<paragraphSegmentIndexes.size(); j++) {
+                nbDatasets.set(paragraphSegmentIndexes.get(j),
+                    this.countDatasetSentences(paragraphSentences.get(j), mapSentenceResult));
+            }
+        }
+
+        List<Boolean> relevantSections;
+        try (Timer.Context context = DataseerMetrics.timer(DataseerMetrics.SECTION_LABELLING).time()) {
+            relevantSections = DataseerParser.getInstance().processingText(segments, sectionTypes, nbDatasets, datasetTypes);
+        }
+
+        DataseerMetrics.histogram(DataseerMetrics.DOCUMENT_SENTENCES).update(mapSentenceResult.size());
+
+        // a section is relevant if its header or one of its paragraphs is labelled as relevant
+        int relevantSectionIndex = 0;
+        for(DocumentSection section : sections) {
+            if (section.isIgnored())
+                continue;
+            boolean relevantSection = false;
+            if (section.hasHead()) {
+                relevantSection = relevantSections.get(relevantSectionIndex);
+                relevantSectionIndex++;
+            }
+            for(String localTextContent : section.getParagraphs()) {
+                if (localTextContent == null || localTextContent.length() == 0) 
+                    continue;
+                if (relevantSections.get(relevantSectionIndex))
+                    relevantSection = true;
+                relevantSectionIndex++;
+            }
+            section.setRelevant(relevantSection);
+        }
+    }
+
+    /**
+     * Classify the sentences of a failed chunk paragraph by paragraph, the sentences of a paragraph
+     * whose classification fails again are left unclassified
+     */
+    private void classifyByParagraph(List<String> documentSentences, int start, int end, 
+                                     TreeSet<Integer> paragraphOffsets, 
+                                     Map<String, SentenceClassification> mapSentenceResult) {
+        int from = start;
+        while (from < end) {
+            Integer nextParagraph = paragraphOffsets.higher(from);
+            int to = (nextParagraph == null) ? end : Math.min(end, nextParagraph);
+            try {
+                this.storeClassifications(this.classifySentences(documentSentences.subList(from, to)), 
+                    mapSentenceResult);
+            } catch(Exception e) {
+                logger.error("Classification of a paragraph failed, its " + (to - from) + 
+                    " sentence(s) are not classified", e);
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * Sentences without classification result yet in the given map
+     */
+    private static List<String> unclassifiedSentences(List<String> sentences, 
+                                                      Map<String, SentenceClassification> mapSentenceResult) {
+        if (mapSentenceResult.isEmpty())
+            return sentences;
+        List<String> unclassified = new ArrayList<String>();
+        for(String sentence : sentences) {
+            if (!mapSentenceResult.containsKey(sentence))
+                unclassified.add(sentence);
+        }
+        return unclassified;
+    }
 
-            encodingDescElement.appendChild(listElement2);
+    /**
+     * Save the sentence classification results in the given map, indexed by sentence text
+     */
+    private void storeClassifications(List<SentenceClassification> classifications, 
+                                      Map<String, SentenceClassification> mapSentenceResult) {
+        for(SentenceClassification classification : classifications) {
+            mapSentenceResult.put(classification.getText(), classification);
         }
     }
 
+    /**
+     * Number of sentences introducing a dataset among the given sentences, based on the classification
+     * results already available in the map
+     */
+    private int countDatasetSentences(List<String> sentences, Map<String, SentenceClassification> mapSentenceResult) {
+        int nbDatasets = 0;
+        for(String sentence : sentences) {
+            SentenceClassification classification = mapSentenceResult.get(sentence);
+            if (classification != null && isDatasetSentence(classification))
+                nbDatasets++;
+        }
+        return nbDatasets;
+    }
+
+    /**
+     * We consider enrichment only in the case a dataset is more likely and with high confidence
+     */
+    static boolean isDatasetSentence(SentenceClassification classification) {
+        return classification.hasDataset() && classification.getHasDatasetProbability() > 0.9;
+    }
+
+    /**
+     * Attributes of the <dataset> element for a predicted data type: type and subtype from the
+     * taxonomy of data types and the wiki page of the data type. A data type not in the taxonomy
+     * is kept as type as it is.
+     */
+    static Map<String, String> getDatasetAttributes(String dataType) {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        if (dataType == null)
+            return attributes;
+        DataTypeTaxonomy.DataType taxonomyType = DataTypeTaxonomy.getInstance().getDataType(dataType);
+        if (taxonomyType == null) {
+            attributes.put("type", dataType);
+            return attributes;
+        }
+        attributes.put("type", taxonomyType.getType().getName());
+        if (taxonomyType.getSubtype() != null)
+            attributes.put("subtype", taxonomyType.getSubtype().getName());
+        if (taxonomyType.getClosestUrl() != null)
+            attributes.put("ref", taxonomyType.getClosestUrl());
+        return attributes;
+    }
+
     private static Element getFirstDirectChild(Element parent, String name) {
         for(Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
             if (child instanceof Element && name.equals(child.getNodeName())) 
@@ -965,7 +1304,7 @@ public class DataseerClassifier {
     public static String serialize(org.w3c.dom.Document doc, Node node) {
         DOMSource domSource = null;
         String xml = null;
-        try {
+        try (Timer.Context context = DataseerMetrics.timer(DataseerMetrics.SERIALIZATION).time()) {
             if (node == null) {
                 domSource = new DOMSource(doc);
             } else {
@@ -973,8 +1312,7 @@ public class DataseerClassifier {
             }
             StringWriter writer = new StringWriter();
             StreamResult result = new StreamResult(writer);
-            TransformerFactory tf = TransformerFactory.newInstance();
-            Transformer transformer = tf.newTransformer();
+            Transformer transformer = XMLUtilities.getTransformer();
             transformer.setOutputProperty(OutputKeys.METHOD, "xml");
             transformer.setOutputProperty(OutputKeys.INDENT, "yes");
             transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
@@ -994,42 +1332,6 @@ public class DataseerClassifier {
         return lsSerializer.writeToString(doc);   
     }
 
-    private Pair<String, Double> getBestDataType(JsonNode classificationsNode) {
-        Iterator<Map.Entry<String,JsonNode>> ite = classificationsNode.fields();
-        String bestDataType = null;
-        double bestProb = 0.0;
-        while (ite.hasNext()) {
-            Map.Entry<String, JsonNode> entry = ite.next(); 
-            String className = entry.getKey();
-            if (className.equals("has_dataset") || className.equals("no_dataset") || className.equals("reuse"))
-                continue;
-
-            JsonNode valNode = entry.getValue();
-            double prob = valNode.asDouble();
-
-            if (prob > bestProb) {
-                bestProb = prob;
-                bestDataType = className;
-            }
-        }
-        return Pair.of(bestDataType, new Double(bestProb));
-    }
-
-    private boolean getReuseInfo(JsonNode classificationsNode) {
-        boolean isReused = false;
-        Iterator<Map.Entry<String,JsonNode>> ite = classificationsNode.fields();
-        while (ite.hasNext()) {
-            Map.Entry<String, JsonNode> entry = ite.next(); 
-            String className = entry.getKey();
-            if (className.equals("reuse")) {
-                JsonNode valNode = entry.getValue();
-                isReused = valNode.asBoolean();
-                break;
-            }
-        }
-        return isReused;
-    }
-
 
     /**
      *  XML is always full of bad surprises. The following document:
@@ -1069,20 +1371,61 @@ public class DataseerClassifier {
      * @return enriched TEI string
      */
     public String processPDF(String filePath) throws Exception {
-        // convert PDF into structured TEI thanks to GROBID
-
-        List<String> coordinates = new ArrayList<>();
-        coordinates.add("s");
-        coordinates.add("head");
-        // TBD: review arguments, no need for images, annotations, outline
-        GrobidAnalysisConfig config = new GrobidAnalysisConfig.GrobidAnalysisConfigBuilder()
-            .consolidateHeader(1)
-            .consolidateCitations(0)
-            .withSentenceSegmentation(true)
-            .generateTeiCoordinates(coordinates)
-            .build();
-        String tei = engine.fullTextToTEI(new File(filePath), config);
+        return processPDF(filePath, null);
+    }
+
+    /**
+     * Convert a PDF into TEI with the given GROBID profile (the configured one if null) and enrich 
+     * the TEI document with Dataseer information
+     * @return enriched TEI string
+     */
+    public String processPDF(String filePath, GrobidProfile profile) throws Exception {
+        String tei = convertPDF(new File(filePath), profile);
         return processTEIString(tei);
     }
 
+    /**
+     * Convert a PDF into TEI with the given GROBID profile (the configured one if null), classify 
+     * its sentences and return the sentences introducing a dataset as a JSON annotation layer, with
+     * their coordinates in the PDF. The enriched TEI is not produced.
+     * @return JSON string
+     */
+    public String annotatePDF(String filePath, GrobidProfile profile) throws Exception {
+        String tei = convertPDF(new File(filePath), profile);
+        if (tei == null)
+            return null;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new TEIStreamingEnricher(this, textualElements, false).annotate(tei, out);
+        return new String(out.toByteArray(), UTF_8);
+    }
+
+    /**
+     * Convert a PDF into structured TEI thanks to GROBID, with the configured GROBID profile
+     * @return TEI string
+     */
+    public String convertPDF(File pdfFile) throws Exception {
+        return convertPDF(pdfFile, null);
+    }
+
+    /**
+     * Convert a PDF into structured TEI thanks to GROBID
+     * @param profile GROBID conversion profile, the configured one if null
+     * @return TEI string
+     */
+    public String convertPDF(File pdfFile, GrobidProfile profile) throws Exception {
+        if (profile == null)
+            profile = getGrobidProfile();
+        GrobidAnalysisConfig config = profile.createConfig();
+        try (Timer.Context context = DataseerMetrics.timer(DataseerMetrics.GROBID_CONVERSION).time()) {
+            return engine.fullTextToTEI(pdfFile, config);
+        }
+    }
+
+    /**
+     * @return the GROBID profile set in the configuration, default profile if not set
+     */
+    public GrobidProfile getGrobidProfile() {
+        return grobidProfile;
+    }
+
 }
@@ -100,99 +100,79 @@ public class DataseerParser extends AbstractParser {
      * is relevant for data set section. 
      */
     public List<Boolean> processing(List<List<LayoutToken>> segments, List<String> sectionTypes, List<Integer> nbDatasets, List<String> datasetTypes) {
-        String content = getFeatureVectorsAsString(segments, sectionTypes, nbDatasets, datasetTypes);
+        List<FeaturesVectorDataseer> vectors = getFeatureVectors(segments, sectionTypes, nbDatasets, datasetTypes);
         List<Boolean> result = new ArrayList<Boolean>();
-        if (isNotEmpty(trim(content))) {
-            String labelledResult = label(content);
-            // set the boolean value for the segments
-            String[] lines = labelledResult.split("\n");
-            int indexMatMetSection = -1;
-            for(int i=0; i < lines.length; i++) {
-                String line = lines[i];
-                String values[] = line.split("\t");
-                if (values.length <= 1)
-                    values = line.split(" ");
-                String label = values[values.length-1];
-                if (label.endsWith("no_dataset")) 
-                    result.add(new Boolean(false));
-                else 
-                    result.add(new Boolean(true));
-
-                if (indexMatMetSection == -1 && values[values.length-2].equals("1")) {
-                    indexMatMetSection = i;
-                }
+        if (vectors.size() == 0)
+            return result;
+
+        StringBuilder content = new StringBuilder();
+        for(FeaturesVectorDataseer vector : vectors)
+            vector.appendVector(content);
+        List<LabelledSegment> labelledSegments = parseLabelledResult(label(content.toString()), vectors);
+
+        // set the boolean value for the segments
+        int indexMatMetSection = -1;
+        for(int i=0; i < labelledSegments.size(); i++) {
+            LabelledSegment segment = labelledSegments.get(i);
+            result.add(Boolean.valueOf(segment.relevant));
+            if (indexMatMetSection == -1 && segment.features.materialsAndMethodPattern) {
+                indexMatMetSection = i;
             }
-    
-            if (indexMatMetSection == -1) {
-                // we relax the constrain for matching any "method" section (match of "method" in the start of header titles)
-                for(int i=0; i < lines.length; i++) {
-                    String line = lines[i].toLowerCase();
-                    if (line.indexOf("method") != -1 || 
-                        (line.indexOf("data") != -1 &&  
-                        (line.indexOf("description") != -1 || 
-                         line.indexOf("experiment") != -1))) {
-                        indexMatMetSection = i;
-                        break;
-                    }
+        }
+
+        if (indexMatMetSection == -1) {
+            // we relax the constrain for matching any "method" section (match of "method" in the start of header titles)
+            for(int i=0; i < labelledSegments.size(); i++) {
+                LabelledSegment segment = labelledSegments.get(i);
+                if (segment.contains("method") || 
+                    (segment.contains("data") &&  
+                    (segment.contains("description") || 
+                     segment.contains("experiment")))) {
+                    indexMatMetSection = i;
+                    break;
                 }
             }
+        }
 
-            if (indexMatMetSection != -1) {
-                // we force these relevant selected sections to be considered for dataset selection
-                // (ideally these sections should be catched by the sequence labeling model, but 
-                // due to the current lack of training data, it's not the case)
-                int nb_new_section = 0;
-                for(int j=indexMatMetSection; j < lines.length; j++) {
-                    // set the section to true
-                    String line = lines[j].toLowerCase();
-                    result.set(j, new Boolean(true));
-                    if (j == indexMatMetSection)
-                        continue;
-
-                    // check if we have a new section based on the existing features
-                    String values[] = line.split("\t");
-                    if (values.length <= 1)
-                        values = line.split(" ");
-                    if (values.length > 4 && values[4].equals("head"))
-                        nb_new_section++;
-
-                    if (nb_new_section > 2)
-                        break;
-
-                    if (j>indexMatMetSection+10) 
-                        break;
-
-                    if (line.indexOf("acknowledgement") != -1 || line.indexOf("funding") != -1 || line.indexOf("conclusion") != -1)  {
-                        result.set(j, new Boolean(false));
-                        break;
-                    }
+        if (indexMatMetSection != -1) {
+            // we force these relevant selected sections to be considered for dataset selection
+            // (ideally these sections should be catched by the sequence labeling model, but 
+            // due to the current lack of training data, it's not the case)
+            int nb_new_section = 0;
+            for(int j=indexMatMetSection; j < labelledSegments.size(); j++) {
+                // set the section to true
+                LabelledSegment segment = labelledSegments.get(j);
+                result.set(j, Boolean.TRUE);
+                if (j == indexMatMetSection)
+                    continue;
+
+                // check if we have a new section based on the existing features
+                if (segment.isHead())
+                    nb_new_section++;
+
+                if (nb_new_section > 2)
+                    break;
+
+                if (j>indexMatMetSection+10) 
+                    break;
+
+                if (segment.contains("acknowledgement") || segment.contains("funding") || segment.contains("conclusion"))  {
+                    result.set(j, Boolean.FALSE);
+                    break;
                 }
             }
+        }
 
-            // re-ajust results to avoid duplicated dataset
-            // check if we have an explicit "materials and methods"-type section 
-            if (indexMatMetSection != -1) {
-                // if yes, check the number of datasets in the explicit "materials and methods"-type section
-                for(int i=indexMatMetSection; i < lines.length; i++) {
-                    String line = lines[i];
-                    String values[] = line.split("\t");
-                    if (values.length <= 1)
-                        values = line.split(" ");
-
-                    String nbDatasetString = values[values.length-6];
-                    int nbDataset = 0;
-                    try {
-                        nbDataset = Integer.parseInt(nbDatasetString);
-                    } catch(Exception e) {
-                        logger.warn("Expected integer value for nb dataset: " + nbDatasetString);
-                    }
-
-                    // if the nb of datasets is large enough, we neutralize the dataset outside this section
-                    if (nbDataset > 2) {
-                        for(int j=0; j<result.size(); j++) {
-                            if (j<indexMatMetSection || j>indexMatMetSection+10)
-                                result.set(j, new Boolean(false));
-                        }
+        // re-ajust results to avoid duplicated dataset
+        // check if we have an explicit "materials and methods"-type section 
+        if (indexMatMetSection != -1) {
+            // if yes, check the number of datasets in the explicit "materials and methods"-type section
+            for(int i=indexMatMetSection; i < labelledSegments.size(); i++) {
+                // if the nb of datasets is large enough, we neutralize the dataset outside this section
+                if (labelledSegments.get(i).features.nbDataset > 2) {
+                    for(int j=0; j<result.size(); j++) {
+                        if (j<indexMatMetSection || j>indexMatMetSection+10)
+                            result.set(j, Boolean.FALSE);
                     }
                 }
             }
@@ -201,6 +181,65 @@ public class DataseerParser extends AbstractParser {
         return result;
     }
 
+    /**
+     * A labelled segment: the feature vector given to the model and the label predicted for it
+     */
+    private static class LabelledSegment {
+        final FeaturesVectorDataseer features;
+        final String label;
+        final boolean relevant;
+        private final String lowerCaseLabel;
+
+        LabelledSegment(FeaturesVectorDataseer features, String label) {
+            this.features = features;
+            this.label = label;
+            this.relevant = !label.endsWith("no_dataset");
+            this.lowerCaseLabel = label.toLowerCase();
+        }
+
+        boolean isHead() {
+            return "head".equalsIgnoreCase(features.sectionType);
+        }
+
+        /**
+         * Keyword match on the labelled line, as in the serialized vector followed by the label
+         */
+        boolean contains(String keyword) {
+            return features.containsIgnoreCase(keyword) || lowerCaseLabel.contains(keyword);
+        }
+    }
+
+    /**
+     * Read the labelled output once, line by line, only the label at the end of each line is 
+     * extracted, the features are already available in the vectors, line i corresponding to vector i
+     */
+    private static List<LabelledSegment> parseLabelledResult(String labelledResult, List<FeaturesVectorDataseer> vectors) {
+        List<LabelledSegment> labelledSegments = new ArrayList<>(vectors.size());
+        if (labelledResult == null)
+            return labelledSegments;
+        int lineStart = 0;
+        int length = labelledResult.length();
+        while (lineStart < length && labelledSegments.size() < vectors.size()) {
+            int lineEnd = labelledResult.indexOf('\n', lineStart);
+            if (lineEnd == -1)
+                lineEnd = length;
+            // the label is the last field, separated by a tabulation or a space
+            int end = lineEnd;
+            while (end > lineStart && Character.isWhitespace(labelledResult.charAt(end-1)))
+                end--;
+            if (end > lineStart) {
+                int labelStart = end;
+                while (labelStart > lineStart && labelledResult.charAt(labelStart-1) != '\t' && 
+                    labelledResult.charAt(labelStart-1) != ' ')
+                    labelStart--;
+                labelledSegments.add(new LabelledSegment(vectors.get(labelledSegments.size()), 
+                    labelledResult.substring(labelStart, end)));
+            }
+            lineStart = lineEnd + 1;
+        }
+        return labelledSegments;
+    }
+
     public List<Boolean> processingText(List<String> segments, List<String> sectionTypes, List<Integer> nbDatasets, List<String> datasetTypes) {
         List<List<LayoutToken>> layoutTokenSegments = new ArrayList<List<LayoutToken>>();
         for(String segment : segments) {
@@ -223,11 +262,24 @@ public class DataseerParser extends AbstractParser {
                                             List<String> sectionTypes,  
                                             List<Integer> nbDatasets, 
                                             List<String> datasetTypes) {
+        StringBuilder fulltext = new StringBuilder();
+        for(FeaturesVectorDataseer features : getFeatureVectors(segments, sectionTypes, nbDatasets, datasetTypes))
+            features.appendVector(fulltext);
+        return fulltext.toString();
+    }
+
+    /**
+     * Feature vectors of the segments, as for getFeatureVectorsAsString(), one vector per line
+     * of the model input. Segments without usable lexical content have no vector.
+     */
+    public static List<FeaturesVectorDataseer> getFeatureVectors(List<List<LayoutToken>> segments, 
+                                            List<String> sectionTypes,  
+                                            List<Integer> nbDatasets, 
+                                            List<String> datasetTypes) {
         // vector for features
         FeaturesVectorDataseer features;
-        FeaturesVectorDataseer previousFeatures = null;
 
-        StringBuilder fulltext = new StringBuilder();
+        List<FeaturesVectorDataseer> vectors = new ArrayList<>();
 
         int maxLineLength = 0;
         for(List<LayoutToken> segment : segments) {
@@ -310,18 +362,11 @@ public class DataseerParser extends AbstractParser {
                     .linearScaling(m, segments.size(), NBBINS_POSITION);
 //System.out.println(nn + " " + documentLength + " " + NBBINS_POSITION + " " + features.relativeDocumentPosition); 
 
-            if (previousFeatures != null) {
-                String vector = previousFeatures.printVector();
-                fulltext.append(vector);
-            }
-            previousFeatures = features;
+            vectors.add(features);
             m++;
         }
-        
-        if (previousFeatures != null)
-            fulltext.append(previousFeatures.printVector());
 
-        return fulltext.toString();
+        return vectors;
     }
 
 
@@ -0,0 +1,323 @@
+package org.grobid.core.engines;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Cache of the results of whole document processing (enriched TEI, annotation JSON), so that a
+ * document submitted again is not converted and classified again.
+ *
+ * Entries are keyed by a SHA-256 hash of the input bytes, of the kind of processing (endpoint and
+ * its options) and of a version covering the models and the configuration. Results are stored
+ * gzipped: in a memory tier bounded in bytes for the hot entries and in a disk tier bounded in
+ * bytes, where the least recently used entries are evicted first. The disk tier survives restarts.
+ */
+public class DocumentResultCache {
+    private static final Logger logger = LoggerFactory.getLogger(DocumentResultCache.class);
+
+    private static final String EXTENSION = ".gz";
+
+    private final String version;
+    private final Cache<String, byte[]> memoryCache;
+
+    // null if there is no disk tier
+    private final File cacheDirectory;
+    private final long maxDiskBytes;
+    // disk entries in access order (least recently used first) with their size
+    private final LinkedHashMap<String, Long> diskEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskBytes = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param version version of the processing (models, configuration), part of the keys
+     * @param maxMemoryBytes maximum size of the gzipped results kept in memory
+     * @param maxDiskBytes maximum size of the gzipped results kept on disk, 0 for no disk tier
+     * @param cachePath directory of the disk tier
+     */
+    public DocumentResultCache(String version, long maxMemoryBytes, long maxDiskBytes, String cachePath) {
+        this.version = version;
+        this.memoryCache = CacheBuilder.newBuilder()
+            .maximumWeight(Math.max(0, maxMemoryBytes))
+            .weigher((String key, byte[] value) -> value.length)
+            .build();
+
+        File directory = null;
+        if (maxDiskBytes > 0 && cachePath != null && cachePath.trim().length() > 0) {
+            directory = new File(cachePath);
+            if (!directory.exists() && !directory.mkdirs()) {
+                logger.warn("Cannot create the document cache directory " + directory.getAbsolutePath() +
+                    ", the disk tier is disabled");
+                directory = null;
+            }
+        }
+        this.cacheDirectory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        if (this.cacheDirectory != null)
+            loadDiskEntries();
+    }
+
+    /**
+     * Rebuild the LRU order of the disk entries from their last access time
+     */
+    private void loadDiskEntries() {
+        List<File> files = new ArrayList<>();
+        File[] subDirectories = cacheDirectory.listFiles(File::isDirectory);
+        if (subDirectories != null) {
+            for (File subDirectory : subDirectories) {
+                File[] entries = subDirectory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+                if (entries != null)
+                    files.addAll(Arrays.asList(entries));
+            }
+        }
+        files.sort(Comparator.comparingLong(File::lastModified));
+        synchronized (diskEntries) {
+            for (File file : files) {
+                String key = file.getName().substring(0, file.getName().length() - EXTENSION.length());
+                diskEntries.put(key, file.length());
+                diskBytes += file.length();
+            }
+            evictDiskEntries();
+        }
+        logger.info("Document cache: " + diskEntries.size() + " entries on disk (" + diskBytes + " bytes)");
+    }
+
+    /**
+     * @param inputDigest SHA-256 of the input document
+     * @param processing kind of processing, e.g. the endpoint and its options
+     */
+    public String key(String inputDigest, String processing) {
+        return Hashing.sha256().newHasher()
+            .putString(version, UTF_8)
+            .putByte((byte) 0)
+            .putString(processing, UTF_8)
+            .putByte((byte) 0)
+            .putString(inputDigest, UTF_8)
+            .hash()
+            .toString();
+    }
+
+    /**
+     * @return the cached result or null if it is not in the cache
+     */
+    public String get(String key) {
+        byte[] compressed = memoryCache.getIfPresent(key);
+        if (compressed == null && cacheDirectory != null) {
+            compressed = readFromDisk(key);
+            if (compressed != null) {
+                diskHits.incrementAndGet();
+                memoryCache.put(key, compressed);
+            }
+        }
+        if (compressed == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        try {
+            String result = decompress(compressed);
+            hits.incrementAndGet();
+            return result;
+        } catch(IOException e) {
+            logger.warn("Invalid document cache entry " + key, e);
+            memoryCache.invalidate(key);
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    public void put(String key, String result) {
+        byte[] compressed;
+        try {
+            compressed = compress(result);
+        } catch(IOException e) {
+            logger.warn("Cannot compress the document cache entry " + key, e);
+            return;
+        }
+        memoryCache.put(key, compressed);
+        if (cacheDirectory != null)
+            writeToDisk(key, compressed);
+    }
+
+    /**
+     * Remove all the entries, in memory and on disk
+     * @return the number of entries removed from the disk
+     */
+    public int purge() {
+        memoryCache.invalidateAll();
+        if (cacheDirectory == null)
+            return 0;
+        int removed = 0;
+        synchronized (diskEntries) {
+            for (String key : new ArrayList<>(diskEntries.keySet())) {
+                if (diskFile(key).delete())
+                    removed++;
+            }
+            diskEntries.clear();
+            diskBytes = 0;
+        }
+        return removed;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getDiskHitCount() {
+        return diskHits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public long getMemoryEntries() {
+        return memoryCache.size();
+    }
+
+    public int getDiskEntries() {
+        synchronized (diskEntries) {
+            return diskEntries.size();
+        }
+    }
+
+    public long getDiskBytes() {
+        synchronized (diskEntries) {
+            return diskBytes;
+        }
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Statistics of the cache, one "name: value" per line
+     */
+    public String getStatistics() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("hits: ").append(getHitCount()).append("\n");
+        builder.append("disk hits: ").append(getDiskHitCount()).append("\n");
+        builder.append("misses: ").append(getMissCount()).append("\n");
+        builder.append("memory entries: ").append(getMemoryEntries()).append("\n");
+        builder.append("disk entries: ").append(getDiskEntries()).append("\n");
+        builder.append("disk bytes: ").append(getDiskBytes()).append("\n");
+        builder.append("disk evictions: ").append(getEvictionCount()).append("\n");
+        return builder.toString();
+    }
+
+    static byte[] compress(String result) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(result.length() / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(result.getBytes(UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    static String decompress(byte[] compressed) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = gzip.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), UTF_8);
+    }
+
+    private File diskFile(String key) {
+        // two levels of directories to avoid huge flat directories
+        return new File(new File(cacheDirectory, key.substring(0, 2)), key + EXTENSION);
+    }
+
+    private byte[] readFromDisk(String key) {
+        synchronized (diskEntries) {
+            // also marks the entry as recently used
+            if (diskEntries.get(key) == null)
+                return null;
+        }
+        File file = diskFile(key);
+        try {
+            byte[] compressed = Files.readAllBytes(file.toPath());
+            // the last modification time keeps the LRU order across restarts
+            file.setLastModified(System.currentTimeMillis());
+            return compressed;
+        } catch(IOException e) {
+            logger.warn("Cannot read document cache entry " + file.getPath(), e);
+            removeDiskEntry(key);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, byte[] compressed) {
+        if (compressed.length > maxDiskBytes)
+            return;
+        File file = diskFile(key);
+        try {
+            File parent = file.getParentFile();
+            if (!parent.exists())
+                parent.mkdirs();
+            // write then rename, so that a concurrent reader never sees a partial entry
+            File tmpFile = File.createTempFile(key, ".tmp", parent);
+            try {
+                Files.write(tmpFile.toPath(), compressed);
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmpFile.toPath());
+            }
+            synchronized (diskEntries) {
+                Long previous = diskEntries.put(key, (long) compressed.length);
+                if (previous != null)
+                    diskBytes -= previous;
+                diskBytes += compressed.length;
+                evictDiskEntries();
+            }
+        } catch(IOException e) {
+            logger.warn("Cannot write document cache entry " + file.getPath(), e);
+        }
+    }
+
+    private void removeDiskEntry(String key) {
+        synchronized (diskEntries) {
+            Long size = diskEntries.remove(key);
+            if (size != null)
+                diskBytes -= size;
+        }
+        diskFile(key).delete();
+    }
+
+    /**
+     * Remove the least recently used disk entries until the disk tier fits in its maximum size,
+     * to be called with the lock on diskEntries
+     */
+    private void evictDiskEntries() {
+        Iterator<Map.Entry<String, Long>> iterator = diskEntries.entrySet().iterator();
+        while (diskBytes > maxDiskBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            iterator.remove();
+            diskBytes -= entry.getValue();
+            diskFile(entry.getKey()).delete();
+            evictions.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.engines.config.GrobidAnalysisConfig;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * GROBID conversion profiles for the PDF documents.
+ *
+ * - default: conversion as done so far, with header consolidation
+ * - dataseer-lean: no header consolidation (which means no network call) and no image 
+ *   preprocessing, the header metadata and the images are not used by the Dataseer enrichment
+ *
+ * Both profiles have the coordinates of the sentences and section headers only, and the other 
+ * settings of GrobidAnalysisConfig by default (no raw citations/affiliations, no vector graphics,
+ * no asset path).
+ */
+public enum GrobidProfile {
+    DEFAULT("default"),
+    LEAN("dataseer-lean");
+
+    // the coordinates are only used for the sentences and the section headers
+    private static final List<String> COORDINATES = Arrays.asList("s", "head");
+
+    private final String name;
+
+    private GrobidProfile(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the profile with the given name, null if the name is empty
+     * @throws IllegalArgumentException if the profile is unknown
+     */
+    public static GrobidProfile fromName(String name) {
+        if (name == null || name.trim().length() == 0)
+            return null;
+        for (GrobidProfile profile : values()) {
+            if (profile.name.equalsIgnoreCase(name.trim()))
+                return profile;
+        }
+        throw new IllegalArgumentException("Unknown GROBID profile: " + name +
+            ", expected one of " + Arrays.toString(names()));
+    }
+
+    public static String[] names() {
+        String[] names = new String[values().length];
+        for (int i = 0; i < names.length; i++)
+            names[i] = values()[i].name;
+        return names;
+    }
+
+    /**
+     * @return the GROBID analysis configuration corresponding to the profile
+     */
+    public GrobidAnalysisConfig createConfig() {
+        GrobidAnalysisConfig.GrobidAnalysisConfigBuilder builder =
+            new GrobidAnalysisConfig.GrobidAnalysisConfigBuilder()
+                .consolidateCitations(0)
+                .withSentenceSegmentation(true)
+                .generateTeiCoordinates(COORDINATES);
+        switch (this) {
+            case LEAN:
+                builder.consolidateHeader(0)
+                    .withPreprocessImages(false);
+                break;
+            default:
+                builder.consolidateHeader(1);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
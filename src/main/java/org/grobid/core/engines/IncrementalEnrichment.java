@@ -0,0 +1,256 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.data.SentenceClassification;
+
+import org.w3c.dom.*;
+
+import java.util.*;
+
+import com.google.common.hash.Hashing;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * State of a previous Dataseer enrichment of a TEI document, for re-enriching it incrementally.
+ *
+ * Each enriched sentence <s> keeps in the attribute dataseerHash a hash of its text and of the
+ * version of the classification models. When the document is submitted again, a sentence with the
+ * same hash is not classified again: its previous prediction is the one in the document, i.e. its
+ * corresp="#dataInstance-N" pointing to the <dataInstance> and <dataset> entries under
+ * <encodingDesc>, or no dataset at all. Only the new or edited sentences are classified, the
+ * entries of the sentences which are no longer introducing a dataset are removed from the lists
+ * and the new ones are added to the existing lists, the other entries are kept untouched with
+ * their identifiers.
+ *
+ * A sentence classified as introducing a dataset but not annotated, because its section is not
+ * selected as data-related, has no hash so that it is always classified again.
+ */
+class IncrementalEnrichment {
+
+    static final String HASH_ATTRIBUTE = "dataseerHash";
+
+    private static final String DATASET_PREFIX = "dataset-";
+    private static final String DATA_INSTANCE_PREFIX = "dataInstance-";
+
+    private final org.w3c.dom.Document doc;
+    private final String modelVersion;
+
+    // existing <list type="dataset"> and <list type="dataInstance">, null if not present
+    private final Element datasetList;
+    private final Element dataInstanceList;
+
+    // existing list entries by xml:id
+    private final Map<String, Element> datasets = new HashMap<>();
+    private final Map<String, Element> dataInstances = new HashMap<>();
+
+    // unchanged sentences with their previous dataInstance id, null if they had no dataset
+    private final Map<Element, String> unchangedSentences = new HashMap<>();
+
+    // dataInstance ids which were referenced by a sentence before this enrichment
+    private final Set<String> previousDataInstances = new HashSet<>();
+
+    private int nextId = 1;
+
+    IncrementalEnrichment(org.w3c.dom.Document doc, String modelVersion) {
+        this.doc = doc;
+        this.modelVersion = modelVersion;
+
+        Element theDatasetList = null;
+        Element theDataInstanceList = null;
+        NodeList lists = doc.getElementsByTagName("list");
+        for (int i = 0; i < lists.getLength(); i++) {
+            Element list = (Element) lists.item(i);
+            if (theDatasetList == null && "dataset".equals(list.getAttribute("type")))
+                theDatasetList = list;
+            else if (theDataInstanceList == null && "dataInstance".equals(list.getAttribute("type")))
+                theDataInstanceList = list;
+        }
+        this.datasetList = theDatasetList;
+        this.dataInstanceList = theDataInstanceList;
+        indexEntries(datasetList, DATASET_PREFIX, datasets);
+        indexEntries(dataInstanceList, DATA_INSTANCE_PREFIX, dataInstances);
+    }
+
+    private void indexEntries(Element list, String prefix, Map<String, Element> entries) {
+        if (list == null)
+            return;
+        for (Node child = list.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (!(child instanceof Element))
+                continue;
+            String id = ((Element) child).getAttribute("xml:id");
+            if (id.length() == 0)
+                continue;
+            entries.put(id, (Element) child);
+            // new entries are numbered after the existing ones
+            if (id.startsWith(prefix)) {
+                try {
+                    nextId = Math.max(nextId, Integer.parseInt(id.substring(prefix.length())) + 1);
+                } catch (NumberFormatException e) {
+                    // not a generated identifier
+                }
+            }
+        }
+    }
+
+    /**
+     * Hash of a sentence text for the current classification models
+     */
+    String hash(String text) {
+        return Hashing.sha256().newHasher()
+            .putString(modelVersion, UTF_8)
+            .putByte((byte) 0)
+            .putString(text, UTF_8)
+            .hash()
+            .toString()
+            .substring(0, 16);
+    }
+
+    /**
+     * Remove the previous annotation of a sentence which can be annotated by the enrichment and
+     * check whether it is unchanged since the previous enrichment
+     *
+     * @return the previous classification of an unchanged sentence, to be used instead of
+     * classifying it again, null if the sentence is new or has been edited
+     */
+    SentenceClassification prepare(Element sentenceElement, String text) {
+        String dataInstanceId = getDataInstanceId(sentenceElement);
+        if (dataInstanceId != null) {
+            sentenceElement.removeAttribute("corresp");
+            previousDataInstances.add(dataInstanceId);
+        }
+
+        String previousHash = sentenceElement.getAttribute(HASH_ATTRIBUTE);
+        if (previousHash.length() == 0 || !previousHash.equals(hash(text)))
+            return null;
+        // the entry of the dataset has been removed meanwhile, the sentence is classified again
+        if (dataInstanceId != null && !dataInstances.containsKey(dataInstanceId))
+            return null;
+
+        unchangedSentences.put(sentenceElement, dataInstanceId);
+        if (dataInstanceId != null)
+            return new SentenceClassification(text, 1.0, 0.0);
+        else
+            return new SentenceClassification(text, 0.0, 1.0);
+    }
+
+    boolean isUnchanged(Element sentenceElement) {
+        return unchangedSentences.containsKey(sentenceElement);
+    }
+
+    /**
+     * Restore the previous annotation of an unchanged sentence
+     * @return true if the sentence is introducing a dataset
+     */
+    boolean restore(Element sentenceElement) {
+        String dataInstanceId = unchangedSentences.get(sentenceElement);
+        if (dataInstanceId == null)
+            return false;
+        sentenceElement.setAttribute("corresp", "#" + dataInstanceId);
+        return true;
+    }
+
+    /**
+     * @return the next free number for new dataset and dataInstance entries
+     */
+    int nextId() {
+        return nextId++;
+    }
+
+    /**
+     * Set or remove the hash of an enriched sentence: the hash is kept only if the enrichment of
+     * the sentence can be restored from the document
+     */
+    void updateHash(Element sentenceElement, String text, SentenceClassification classification) {
+        boolean annotated = getDataInstanceId(sentenceElement) != null;
+        if (annotated || classification == null || !DataseerClassifier.isDatasetSentence(classification))
+            sentenceElement.setAttribute(HASH_ATTRIBUTE, hash(text));
+        else
+            sentenceElement.removeAttribute(HASH_ATTRIBUTE);
+    }
+
+    Element getDatasetList() {
+        return datasetList;
+    }
+
+    Element getDataInstanceList() {
+        return dataInstanceList;
+    }
+
+    /**
+     * Remove the list entries of the sentences which are no longer introducing a dataset, and the
+     * dataseer subtype of the sections without dataset anymore
+     */
+    void removeObsoleteEntries() {
+        Set<String> referencedDataInstances = new HashSet<>();
+        NodeList sentenceList = doc.getElementsByTagName("s");
+        for (int i = 0; i < sentenceList.getLength(); i++) {
+            String dataInstanceId = getDataInstanceId((Element) sentenceList.item(i));
+            if (dataInstanceId != null)
+                referencedDataInstances.add(dataInstanceId);
+        }
+
+        Set<String> removedDatasets = new HashSet<>();
+        for (String dataInstanceId : previousDataInstances) {
+            if (referencedDataInstances.contains(dataInstanceId))
+                continue;
+            Element dataInstance = dataInstances.remove(dataInstanceId);
+            if (dataInstance == null)
+                continue;
+            dataInstance.getParentNode().removeChild(dataInstance);
+            String datasetId = getTarget(dataInstance.getAttribute("corresp"));
+            if (datasetId != null)
+                removedDatasets.add(datasetId);
+        }
+
+        // a dataset is kept as long as a dataInstance refers to it
+        for (Element dataInstance : dataInstances.values())
+            removedDatasets.remove(getTarget(dataInstance.getAttribute("corresp")));
+        for (String datasetId : removedDatasets) {
+            Element dataset = datasets.remove(datasetId);
+            if (dataset != null)
+                dataset.getParentNode().removeChild(dataset);
+        }
+
+        NodeList sectionList = doc.getElementsByTagName("div");
+        for (int i = 0; i < sectionList.getLength(); i++) {
+            Element sectionElement = (Element) sectionList.item(i);
+            if (!"dataseer".equals(sectionElement.getAttribute("subtype")))
+                continue;
+            boolean hasDataset = false;
+            NodeList sectionSentences = sectionElement.getElementsByTagName("s");
+            for (int j = 0; j < sectionSentences.getLength() && !hasDataset; j++)
+                hasDataset = getDataInstanceId((Element) sectionSentences.item(j)) != null;
+            if (!hasDataset)
+                sectionElement.removeAttribute("subtype");
+        }
+    }
+
+    /**
+     * @return the dataInstance id referred by a sentence, null if the sentence is not annotated
+     */
+    private static String getDataInstanceId(Element sentenceElement) {
+        String target = getTarget(sentenceElement.getAttribute("corresp"));
+        return (target != null && target.startsWith(DATA_INSTANCE_PREFIX)) ? target : null;
+    }
+
+    private static String getTarget(String pointer) {
+        if (pointer == null || !pointer.startsWith("#") || pointer.length() == 1)
+            return null;
+        return pointer.substring(1);
+    }
+
+    /**
+     * Identifier for a sentence without xml:id, distinct from the identifiers already present in
+     * the document
+     */
+    static String newSentenceId(Set<String> usedIds, int index) {
+        String id = "sentence-" + index;
+        int suffix = 1;
+        while (usedIds.contains(id)) {
+            id = "sentence-" + index + "-" + suffix;
+            suffix++;
+        }
+        usedIds.add(id);
+        return id;
+    }
+}
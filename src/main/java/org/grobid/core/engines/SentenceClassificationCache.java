@@ -0,0 +1,365 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.data.SentenceClassification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Cache of the sentence classification results, so that sentences occurring again and again
+ * (data availability statements, ethics statements, standard method descriptions, etc.) are not
+ * classified again by the DeLFT models.
+ *
+ * Entries are keyed by a SHA-256 hash of the normalised sentence text and of the model version,
+ * so that results produced by different models are never mixed. The in-memory tier is bounded in
+ * size and time, an optional on-disk tier keeps the results across restarts. The disk tier is
+ * bounded in bytes, the least recently used entries being removed first, and its expired entries
+ * are removed periodically, even if they are never read again.
+ */
+public class SentenceClassificationCache {
+    private static final Logger logger = LoggerFactory.getLogger(SentenceClassificationCache.class);
+
+    private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+    // version of the binary format of the disk entries
+    private static final byte FORMAT_VERSION = 1;
+
+    private final String modelVersion;
+    private final long ttlMillis;
+    private final Cache<String, SentenceClassification> memoryCache;
+
+    // null if there is no disk tier
+    private final File cacheDirectory;
+    private final ScheduledExecutorService diskWriter;
+    private final long maxDiskBytes;
+
+    // disk entries in access order (least recently used first)
+    private final LinkedHashMap<String, DiskEntry> diskEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskBytes = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private static final class DiskEntry {
+        final long size;
+        // write time, for the expiration
+        final long written;
+
+        DiskEntry(long size, long written) {
+            this.size = size;
+            this.written = written;
+        }
+    }
+
+    /**
+     * @param maxSize maximum number of entries in memory
+     * @param ttlMillis time to live of the entries, 0 for no expiration
+     * @param cachePath directory of the disk tier, no disk tier if null
+     * @param maxDiskBytes maximum size of the disk tier
+     */
+    public SentenceClassificationCache(String modelVersion, long maxSize, long ttlMillis, String cachePath, 
+                                       long maxDiskBytes) {
+        this.modelVersion = modelVersion;
+        this.ttlMillis = ttlMillis;
+
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maxSize);
+        if (ttlMillis > 0)
+            builder.expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS);
+        this.memoryCache = builder.build();
+
+        File directory = null;
+        if (cachePath != null && cachePath.trim().length() > 0) {
+            directory = new File(cachePath);
+            if (!directory.exists() && !directory.mkdirs()) {
+                logger.warn("Cannot create the classification cache directory " + directory.getAbsolutePath() +
+                    ", the disk tier is disabled");
+                directory = null;
+            }
+        }
+        this.cacheDirectory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        if (this.cacheDirectory != null) {
+            loadDiskEntries();
+            this.diskWriter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "dataseer-cache-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (ttlMillis > 0)
+                diskWriter.scheduleWithFixedDelay(this::removeExpiredDiskEntries, 1, 1, TimeUnit.HOURS);
+        } else {
+            this.diskWriter = null;
+        }
+    }
+
+    /**
+     * Index the existing disk entries, the entries written first are the first to be evicted
+     */
+    private void loadDiskEntries() {
+        List<File> files = new ArrayList<>();
+        File[] subDirectories = cacheDirectory.listFiles(File::isDirectory);
+        if (subDirectories != null) {
+            for (File subDirectory : subDirectories) {
+                File[] entries = subDirectory.listFiles();
+                if (entries == null)
+                    continue;
+                for (File entry : entries) {
+                    // temporary file left by an interrupted write
+                    if (entry.getName().endsWith(".tmp"))
+                        entry.delete();
+                    else
+                        files.add(entry);
+                }
+            }
+        }
+        files.sort(Comparator.comparingLong(File::lastModified));
+        synchronized (diskEntries) {
+            for (File file : files)
+                addDiskEntry(file.getName(), new DiskEntry(file.length(), file.lastModified()));
+            removeExpiredDiskEntries();
+            evictDiskEntries();
+        }
+    }
+
+    /**
+     * @return the cached classification of the sentence, with the text of the sentence as provided,
+     * or null if the sentence is not in the cache
+     */
+    public SentenceClassification get(String text) {
+        String key = key(text);
+        SentenceClassification cached = memoryCache.getIfPresent(key);
+        if (cached == null && cacheDirectory != null) {
+            cached = readFromDisk(key);
+            if (cached != null) {
+                diskHits.incrementAndGet();
+                memoryCache.put(key, cached);
+            }
+        }
+        if (cached == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return cached.withText(text);
+    }
+
+    public void put(String text, SentenceClassification classification) {
+        final String key = key(text);
+        memoryCache.put(key, classification);
+        if (diskWriter != null) {
+            diskWriter.submit(() -> writeToDisk(key, classification));
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getDiskHitCount() {
+        return diskHits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public long size() {
+        return memoryCache.size();
+    }
+
+    public int getDiskEntries() {
+        synchronized (diskEntries) {
+            return diskEntries.size();
+        }
+    }
+
+    public long getDiskBytes() {
+        synchronized (diskEntries) {
+            return diskBytes;
+        }
+    }
+
+    public String getModelVersion() {
+        return modelVersion;
+    }
+
+    private String key(String text) {
+        String normalised = WHITESPACES.matcher(text).replaceAll(" ").trim();
+        return Hashing.sha256().newHasher()
+            .putString(modelVersion, UTF_8)
+            .putByte((byte) 0)
+            .putString(normalised, UTF_8)
+            .hash()
+            .toString();
+    }
+
+    private File diskFile(String key) {
+        // two levels of directories to avoid huge flat directories
+        return new File(new File(cacheDirectory, key.substring(0, 2)), key);
+    }
+
+    private SentenceClassification readFromDisk(String key) {
+        synchronized (diskEntries) {
+            // also marks the entry as recently used
+            DiskEntry entry = diskEntries.get(key);
+            if (entry == null)
+                return null;
+            if (isExpired(entry)) {
+                removeDiskEntry(key);
+                return null;
+            }
+        }
+        File file = diskFile(key);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readByte() != FORMAT_VERSION)
+                return null;
+            String text = in.readUTF();
+            SentenceClassification classification = new SentenceClassification(text, in.readDouble(), in.readDouble());
+            int nbLabels = in.readInt();
+            if (nbLabels >= 0) {
+                String[] labels = new String[nbLabels];
+                double[] probabilities = new double[nbLabels];
+                for(int i=0; i<nbLabels; i++) {
+                    labels[i] = in.readUTF();
+                    probabilities[i] = in.readDouble();
+                }
+                classification.setDataTypes(labels, probabilities);
+            }
+            if (in.readBoolean())
+                classification.setReuse(in.readBoolean());
+            return classification;
+        } catch(IOException e) {
+            logger.warn("Invalid classification cache entry " + file.getPath(), e);
+            synchronized (diskEntries) {
+                removeDiskEntry(key);
+            }
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, SentenceClassification classification) {
+        File file = diskFile(key);
+        try {
+            File parent = file.getParentFile();
+            if (!parent.exists())
+                parent.mkdirs();
+            // write a unique temporary file then rename it, so that a concurrent reader never sees 
+            // a partial entry and concurrent writers of the same entry never mix their writes
+            File tmpFile = File.createTempFile(key, ".tmp", parent);
+            try {
+                writeEntry(tmpFile, classification);
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmpFile.toPath());
+            }
+            synchronized (diskEntries) {
+                addDiskEntry(key, new DiskEntry(file.length(), System.currentTimeMillis()));
+                evictDiskEntries();
+            }
+        } catch(IOException e) {
+            logger.warn("Cannot write classification cache entry " + file.getPath(), e);
+        }
+    }
+
+    private static void writeEntry(File tmpFile, SentenceClassification classification) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeUTF(classification.getText());
+            out.writeDouble(classification.getHasDatasetProbability());
+            out.writeDouble(classification.getNoDatasetProbability());
+            if (classification.hasDataTypes()) {
+                String[] labels = classification.getDataTypeLabels();
+                double[] probabilities = classification.getDataTypeProbabilities();
+                int nbLabels = Math.min(labels.length, probabilities.length);
+                out.writeInt(nbLabels);
+                for(int i=0; i<nbLabels; i++) {
+                    out.writeUTF(labels[i]);
+                    out.writeDouble(probabilities[i]);
+                }
+            } else {
+                out.writeInt(-1);
+            }
+            out.writeBoolean(classification.hasReuseInfo());
+            if (classification.hasReuseInfo())
+                out.writeBoolean(classification.isReuse());
+        }
+    }
+
+    private boolean isExpired(DiskEntry entry) {
+        return ttlMillis > 0 && System.currentTimeMillis() - entry.written > ttlMillis;
+    }
+
+    /**
+     * To be called with the lock on diskEntries
+     */
+    private void addDiskEntry(String key, DiskEntry entry) {
+        DiskEntry previous = diskEntries.put(key, entry);
+        if (previous != null)
+            diskBytes -= previous.size;
+        diskBytes += entry.size;
+    }
+
+    /**
+     * To be called with the lock on diskEntries
+     */
+    private void removeDiskEntry(String key) {
+        DiskEntry entry = diskEntries.remove(key);
+        if (entry != null)
+            diskBytes -= entry.size;
+        diskFile(key).delete();
+    }
+
+    /**
+     * Remove the disk entries older than the time to live, whether they are read again or not
+     */
+    private void removeExpiredDiskEntries() {
+        synchronized (diskEntries) {
+            Iterator<Map.Entry<String, DiskEntry>> iterator = diskEntries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, DiskEntry> entry = iterator.next();
+                if (isExpired(entry.getValue())) {
+                    iterator.remove();
+                    diskBytes -= entry.getValue().size;
+                    diskFile(entry.getKey()).delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the least recently used disk entries until the disk tier fits in its maximum size,
+     * to be called with the lock on diskEntries
+     */
+    private void evictDiskEntries() {
+        Iterator<Map.Entry<String, DiskEntry>> iterator = diskEntries.entrySet().iterator();
+        while (diskBytes > maxDiskBytes && iterator.hasNext()) {
+            Map.Entry<String, DiskEntry> entry = iterator.next();
+            iterator.remove();
+            diskBytes -= entry.getValue().size;
+            diskFile(entry.getKey()).delete();
+            evictions.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.utilities.OffsetPosition;
+import org.grobid.core.utilities.SentenceUtilities;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sentence segmentation of the textual elements of a TEI document, working directly on the DOM.
+ *
+ * The sentence boundaries are detected on the text content of a paragraph and mapped back to
+ * its child nodes: text nodes are split at the boundaries, inline elements (e.g. <ref>) are moved
+ * as they are into the sentence where they start. A boundary falling inside an inline element is
+ * ignored, so that the two sentences around it are merged, and no markup is ever broken.
+ */
+public class SentenceSegmenter {
+
+    public static final String TEI_NS = "http://www.tei-c.org/ns/1.0";
+
+    private List<String> textualElements;
+
+    public SentenceSegmenter(List<String> textualElements) {
+        this.textualElements = textualElements;
+    }
+
+    /**
+     * Segment into <s> elements the textual elements under the given node
+     */
+    public void segment(Document doc, Node node) {
+        final NodeList children = node.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            final Node n = children.item(i);
+            if (n.getNodeType() != Node.ELEMENT_NODE)
+                continue;
+            if (textualElements.contains(n.getNodeName())) {
+                // already segmented, e.g. a document enriched before
+                if (hasSentence((Element) n))
+                    continue;
+                String text = n.getTextContent();
+                List<OffsetPosition> boundaries = SentenceUtilities.getInstance().runSentenceDetection(text);
+                segment(doc, (Element) n, boundaries);
+            } else {
+                segment(doc, n);
+            }
+        }
+    }
+
+    /**
+     * @return true if the textual element already contains sentences
+     */
+    static boolean hasSentence(Element element) {
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE && "s".equals(child.getNodeName()))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Replace the content of a textual element by sentences, given the sentence boundaries as
+     * offsets in the text content of the element
+     */
+    protected void segment(Document doc, Element element, List<OffsetPosition> boundaries) {
+        if (boundaries == null || boundaries.size() == 0)
+            return;
+
+        List<Node> childNodes = new ArrayList<>();
+        NodeList children = element.getChildNodes();
+        for(int i=0; i<children.getLength(); i++)
+            childNodes.add(children.item(i));
+
+        // start and end offsets of each child in the text content of the element
+        int[] childStarts = new int[childNodes.size()];
+        int[] childEnds = new int[childNodes.size()];
+        int textLength = 0;
+        for(int i=0; i<childNodes.size(); i++) {
+            childStarts[i] = textLength;
+            textLength += textLength(childNodes.get(i));
+            childEnds[i] = textLength;
+        }
+
+        // a sentence extends up to the start of the next one, boundaries inside an inline element
+        // are dropped
+        List<Integer> cuts = new ArrayList<>();
+        cuts.add(0);
+        for(int j=1; j<boundaries.size(); j++) {
+            int cut = boundaries.get(j).start;
+            if (cut <= cuts.get(cuts.size()-1) || cut >= textLength)
+                continue;
+            boolean insideElement = false;
+            for(int i=0; i<childNodes.size(); i++) {
+                if (childNodes.get(i).getNodeType() != Node.TEXT_NODE &&
+                    childNodes.get(i).getNodeType() != Node.CDATA_SECTION_NODE &&
+                    childStarts[i] < cut && cut < childEnds[i]) {
+                    insideElement = true;
+                    break;
+                }
+            }
+            if (!insideElement)
+                cuts.add(cut);
+        }
+        cuts.add(textLength);
+
+        List<Element> sentences = new ArrayList<>();
+        int childIndex = 0;
+        for(int k=0; k<cuts.size()-1; k++) {
+            int sentenceStart = cuts.get(k);
+            int sentenceEnd = cuts.get(k+1);
+            boolean last = (k == cuts.size()-2);
+            Element sentence = doc.createElementNS(TEI_NS, "s");
+
+            // children starting in the sentence, the last sentence takes all the remaining ones
+            while (childIndex < childNodes.size() &&
+                   (last || childStarts[childIndex] < sentenceEnd)) {
+                Node child = childNodes.get(childIndex);
+                if (child.getNodeType() == Node.TEXT_NODE || child.getNodeType() == Node.CDATA_SECTION_NODE) {
+                    String data = child.getNodeValue();
+                    int from = Math.max(sentenceStart, childStarts[childIndex]) - childStarts[childIndex];
+                    int to = Math.min(sentenceEnd, childEnds[childIndex]) - childStarts[childIndex];
+                    if (to > from)
+                        sentence.appendChild(doc.createTextNode(data.substring(from, to)));
+                    if (!last && childEnds[childIndex] > sentenceEnd) {
+                        // the rest of the text node goes to the next sentence
+                        break;
+                    }
+                } else {
+                    sentence.appendChild(child);
+                }
+                childIndex++;
+            }
+
+            normalizeSpaces(sentence, true, true);
+            if (sentence.hasChildNodes())
+                sentences.add(sentence);
+        }
+
+        // remove old nodes
+        while (element.hasChildNodes())
+            element.removeChild(element.getFirstChild());
+
+        // and add new ones
+
+        // if we have a figDesc, we need to inject div/p nodes for dataseer-ml support
+        if (element.getNodeName().equals("figDesc")) {
+            Element theDiv = doc.createElementNS(TEI_NS, "div");
+            Element theP = doc.createElementNS(TEI_NS, "p");
+            for(Element sentence : sentences)
+                theP.appendChild(sentence);
+            theDiv.appendChild(theP);
+            element.appendChild(theDiv);
+        } else {
+            for(Element sentence : sentences)
+                element.appendChild(sentence);
+        }
+    }
+
+    private static int textLength(Node node) {
+        switch (node.getNodeType()) {
+            case Node.TEXT_NODE:
+            case Node.CDATA_SECTION_NODE:
+                return node.getNodeValue().length();
+            case Node.ELEMENT_NODE:
+                return node.getTextContent().length();
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Replace end of lines by spaces and collapse sequences of spaces in the text nodes under the
+     * given node, trimming the text at the start and/or end of the node, and remove the text
+     * nodes becoming empty
+     */
+    private static void normalizeSpaces(Node node, boolean trimStart, boolean trimEnd) {
+        Node child = node.getFirstChild();
+        while (child != null) {
+            Node next = child.getNextSibling();
+            boolean first = (child == node.getFirstChild());
+            boolean lastChild = (next == null);
+            if (child.getNodeType() == Node.TEXT_NODE) {
+                String data = child.getNodeValue().replace("\n", " ").replaceAll("( )+", " ");
+                if (trimStart && first)
+                    data = stripStart(data);
+                if (trimEnd && lastChild)
+                    data = stripEnd(data);
+                if (data.length() == 0)
+                    node.removeChild(child);
+                else
+                    child.setNodeValue(data);
+            } else if (child.getNodeType() == Node.ELEMENT_NODE) {
+                normalizeSpaces(child, false, false);
+            }
+            child = next;
+        }
+    }
+
+    private static String stripStart(String text) {
+        int i = 0;
+        while (i < text.length() && Character.isWhitespace(text.charAt(i)))
+            i++;
+        return text.substring(i);
+    }
+
+    private static String stripEnd(String text) {
+        int i = text.length();
+        while (i > 0 && Character.isWhitespace(text.charAt(i-1)))
+            i--;
+        return text.substring(0, i);
+    }
+}
@@ -0,0 +1,912 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.data.DocumentSection;
+import org.grobid.core.data.SentenceClassification;
+import org.grobid.core.utilities.DataseerMetrics;
+import org.grobid.core.utilities.OffsetPosition;
+import org.grobid.core.utilities.SentenceUtilities;
+import org.grobid.core.utilities.XMLUtilities;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enrichment of a TEI document with Dataseer information without building a DOM of the whole
+ * document, as an alternative to DataseerClassifier.processTEIDocument() for large documents.
+ *
+ * The TEI is read twice with StAX. The first pass only keeps the text needed by the classification
+ * and the section labelling (headers, paragraphs and sentences of the sections). The second pass
+ * copies the document event by event to the output, adding the sentence identifiers, the dataset
+ * references on the sentences and the subtype of the relevant sections, and writes the dataset and
+ * dataInstance lists at the end of <encodingDesc>.
+ *
+ * When sentence segmentation is requested, each textual element (<p>, <figDesc>) is buffered as a
+ * small DOM, segmented with the SentenceSegmenter and then processed like the rest of the stream.
+ */
+public class TEIStreamingEnricher {
+    private static final Logger logger = LoggerFactory.getLogger(TEIStreamingEnricher.class);
+
+    private static final String TEI_NS = SentenceSegmenter.TEI_NS;
+
+    private static final XMLInputFactory inputFactory = createInputFactory();
+    private static final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final DataseerClassifier classifier;
+    private final List<String> textualElements;
+    private final boolean segmentSentences;
+    private final SentenceSegmenter segmenter;
+
+    // time spent in the sentence segmentation of the document, over the two passes
+    private long segmentationNanos = 0;
+
+    public TEIStreamingEnricher(DataseerClassifier classifier, List<String> textualElements, boolean segmentSentences) {
+        this.classifier = classifier;
+        this.textualElements = textualElements;
+        this.segmentSentences = segmentSentences;
+        this.segmenter = new SentenceSegmenter(textualElements);
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, Boolean.TRUE);
+        return factory;
+    }
+
+    /**
+     * A TEI input that can be read several times, as an InputStream or a Reader
+     */
+    private interface TEISource {
+        Closeable open() throws IOException;
+    }
+
+    /**
+     * Enrich the TEI file and write the enriched TEI to the output stream, in UTF-8
+     */
+    public void enrich(final File teiFile, OutputStream out) throws IOException, XMLStreamException {
+        enrich(() -> new BufferedInputStream(new FileInputStream(teiFile), 65536), out);
+    }
+
+    /**
+     * Enrich the TEI string and write the enriched TEI to the output stream, in UTF-8
+     */
+    public void enrich(final String tei, OutputStream out) throws IOException, XMLStreamException {
+        enrich(() -> new StringReader(tei), out);
+    }
+
+    /**
+     * First pass on the TEI file: read the document and classify its sentences. The enriched TEI 
+     * is written afterwards with {@link PreparedEnrichment#write(OutputStream)}, so that a 
+     * malformed document or a classification failure is known before starting to write it.
+     */
+    public PreparedEnrichment prepare(final File teiFile) throws IOException, XMLStreamException {
+        return prepare(() -> new BufferedInputStream(new FileInputStream(teiFile), 65536));
+    }
+
+    /**
+     * A TEI document with its classified sentences, ready for the second pass
+     */
+    public final class PreparedEnrichment {
+        private final TEISource source;
+        private final SectionCollector collector;
+        private final Enrichment enrichment;
+
+        private PreparedEnrichment(TEISource source, SectionCollector collector, Enrichment enrichment) {
+            this.source = source;
+            this.collector = collector;
+            this.enrichment = enrichment;
+        }
+
+        /**
+         * Second pass: write the enriched TEI to the output stream, in UTF-8
+         */
+        public void write(OutputStream out) throws IOException, XMLStreamException {
+            XMLStreamWriter writer;
+            synchronized(outputFactory) {
+                writer = outputFactory.createXMLStreamWriter(out, "UTF-8");
+            }
+            long start = System.nanoTime();
+            long segmentationStart = segmentationNanos;
+            try {
+                read(source, new EnrichedWriter(writer, collector, enrichment));
+                writer.flush();
+            } finally {
+                writer.close();
+            }
+            // the segmentation done again during the second pass is not part of the serialization
+            long serializationNanos = System.nanoTime() - start - (segmentationNanos - segmentationStart);
+            DataseerMetrics.timer(DataseerMetrics.SERIALIZATION).update(serializationNanos, TimeUnit.NANOSECONDS);
+            recordSegmentation();
+        }
+    }
+
+    /**
+     * Classify the sentences of the TEI string and write the dataset sentences as a JSON annotation
+     * layer (page dimensions, bounding boxes of the sentences, data type, certainty and reuse) to
+     * the output stream, in UTF-8. Only the first pass is done, the TEI is not rewritten.
+     */
+    public void annotate(final String tei, OutputStream out) throws IOException, XMLStreamException {
+        SectionCollector collector = new SectionCollector();
+        read(() -> new StringReader(tei), collector);
+        recordSegmentation();
+        Enrichment enrichment = classify(collector);
+
+        JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8);
+        try {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("pages");
+            for(double[] page : collector.pages) {
+                generator.writeStartObject();
+                generator.writeNumberField("page_height", page[1]);
+                generator.writeNumberField("page_width", page[0]);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("datasets");
+            for(DatasetSentence sentence : enrichment.datasetSentences) {
+                generator.writeStartObject();
+                generator.writeStringField("id", sentence.dataInstanceId);
+                generator.writeStringField("sentence", sentence.sentenceId);
+                for (Map.Entry<String, String> attribute : DataseerClassifier.getDatasetAttributes(sentence.dataType).entrySet())
+                    generator.writeStringField(attribute.getKey(), attribute.getValue());
+                generator.writeNumberField("cert", sentence.cert);
+                generator.writeBooleanField("reuse", sentence.reuse);
+                generator.writeArrayFieldStart("pos");
+                writeCoordinates(generator, sentence.coords);
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } finally {
+            generator.close();
+        }
+    }
+
+    /**
+     * Write the boxes of a TEI coords attribute ("p,x,y,w,h;p,x,y,w,h...") as JSON objects
+     */
+    private static void writeCoordinates(JsonGenerator generator, String coords) throws IOException {
+        if (isEmpty(coords))
+            return;
+        for(String box : coords.split(";")) {
+            String[] values = box.split(",");
+            if (values.length != 5)
+                continue;
+            try {
+                int page = Integer.parseInt(values[0].trim());
+                double x = Double.parseDouble(values[1].trim());
+                double y = Double.parseDouble(values[2].trim());
+                double w = Double.parseDouble(values[3].trim());
+                double h = Double.parseDouble(values[4].trim());
+                generator.writeStartObject();
+                generator.writeNumberField("p", page);
+                generator.writeNumberField("x", x);
+                generator.writeNumberField("y", y);
+                generator.writeNumberField("w", w);
+                generator.writeNumberField("h", h);
+                generator.writeEndObject();
+            } catch(NumberFormatException e) {
+                logger.debug("invalid coordinates: " + box);
+            }
+        }
+    }
+
+    private void enrich(TEISource source, OutputStream out) throws IOException, XMLStreamException {
+        prepare(source).write(out);
+    }
+
+    private PreparedEnrichment prepare(TEISource source) throws IOException, XMLStreamException {
+        // first pass: collect the sections
+        SectionCollector collector = new SectionCollector();
+        read(source, collector);
+        return new PreparedEnrichment(source, collector, classify(collector));
+    }
+
+    /**
+     * Record the segmentation time of the whole document, as the DOM pipeline does
+     */
+    private void recordSegmentation() {
+        if (segmentSentences)
+            DataseerMetrics.timer(DataseerMetrics.SEGMENTATION).update(segmentationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Classification and section labelling of the collected sections
+     */
+    private Enrichment classify(SectionCollector collector) {
+        Map<String, SentenceClassification> mapSentenceResult = new TreeMap<String, SentenceClassification>();
+        classifier.classifySections(collector.sections, mapSentenceResult);
+
+        logger.debug("streaming enrichment: " + collector.sections.size() + " section(s)");
+
+        // dataset identifiers, in the order of the sections and of their sentences
+        Enrichment enrichment = new Enrichment();
+        int dataSetId = 1;
+        for(StreamedSection section : collector.sections) {
+            if (!section.isRelevant())
+                continue;
+            for(int j=0; j<section.sentences.size(); j++) {
+                SentenceClassification classification = mapSentenceResult.get(section.sentences.get(j));
+                if (classification == null || !DataseerClassifier.isDatasetSentence(classification))
+                    continue;
+                Pair<String, Double> bestDataTypeWithProb = classification.getBestDataType();
+                int sentenceIndex = section.sentenceIndexes.get(j);
+                enrichment.sentenceDataInstances.put(sentenceIndex, "dataInstance-"+dataSetId);
+                enrichment.datasetMap.put("dataset-"+dataSetId, bestDataTypeWithProb.getLeft());
+                enrichment.dataInstanceMap.put("dataInstance-"+dataSetId, "dataset-"+dataSetId);
+                enrichment.dataInstanceScoreMap.put("dataInstance-"+dataSetId, bestDataTypeWithProb.getRight());
+                enrichment.dataInstanceReuseMap.put("dataInstance-"+dataSetId, classification.isReuse());
+                enrichment.dataseerDivs.set(section.divIndex);
+
+                DatasetSentence datasetSentence = new DatasetSentence();
+                datasetSentence.dataInstanceId = "dataInstance-"+dataSetId;
+                String sentenceId = section.sentenceIds.get(j);
+                datasetSentence.sentenceId = (sentenceId != null) ? sentenceId : "sentence-"+sentenceIndex;
+                datasetSentence.coords = section.sentenceCoords.get(j);
+                datasetSentence.dataType = bestDataTypeWithProb.getLeft();
+                datasetSentence.cert = bestDataTypeWithProb.getRight();
+                datasetSentence.reuse = classification.isReuse();
+                enrichment.datasetSentences.add(datasetSentence);
+                dataSetId++;
+            }
+        }
+        DataseerMetrics.histogram(DataseerMetrics.DOCUMENT_DATASETS).update(enrichment.datasetMap.size());
+        return enrichment;
+    }
+
+    /**
+     * Read the whole document and pass its events to the handler, buffering and segmenting the
+     * textual elements if sentence segmentation is requested
+     */
+    private void read(TEISource source, EventHandler handler) throws IOException, XMLStreamException {
+        try (Closeable input = source.open()) {
+            XMLStreamReader reader;
+            synchronized(inputFactory) {
+                if (input instanceof Reader)
+                    reader = inputFactory.createXMLStreamReader((Reader) input);
+                else
+                    reader = inputFactory.createXMLStreamReader((InputStream) input);
+            }
+            try {
+                read(reader, handler);
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    private void read(XMLStreamReader reader, EventHandler handler) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            switch (event) {
+                case XMLStreamConstants.START_DOCUMENT:
+                    break;
+                case XMLStreamConstants.START_ELEMENT:
+                    if (segmentSentences && textualElements.contains(qualifiedName(reader.getPrefix(), reader.getLocalName()))) {
+                        Document doc = XMLUtilities.getDocumentBuilder(true).newDocument();
+                        Element element = readElement(reader, doc);
+                        doc.appendChild(element);
+                        // already segmented, e.g. a document enriched before, as with the DOM pipeline
+                        if (!SentenceSegmenter.hasSentence(element)) {
+                            long start = System.nanoTime();
+                            segmenter.segment(doc, element, handler.sentenceBoundaries(element));
+                            segmentationNanos += System.nanoTime() - start;
+                        }
+                        replay(element, handler);
+                    } else {
+                        handler.startElement(ElementEvent.of(reader));
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    handler.endElement();
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                    handler.characters(reader.getText(), false);
+                    break;
+                case XMLStreamConstants.CDATA:
+                    handler.characters(reader.getText(), true);
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    handler.comment(reader.getText());
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    handler.processingInstruction(reader.getPITarget(), reader.getPIData());
+                    break;
+                default:
+                    // DTD and unresolved entities are not reproduced, as with the DOM serialization
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Build the DOM of the element at the current position of the reader, the reader is left on
+     * the end of the element
+     */
+    private static Element readElement(XMLStreamReader reader, Document doc) throws XMLStreamException {
+        Element root = createElement(reader, doc);
+        Node current = root;
+        while (current != null && reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    Element element = createElement(reader, doc);
+                    current.appendChild(element);
+                    current = element;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    current = (current == root) ? null : current.getParentNode();
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                    current.appendChild(doc.createTextNode(reader.getText()));
+                    break;
+                case XMLStreamConstants.CDATA:
+                    current.appendChild(doc.createCDATASection(reader.getText()));
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    current.appendChild(doc.createComment(reader.getText()));
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    current.appendChild(doc.createProcessingInstruction(reader.getPITarget(), reader.getPIData()));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return root;
+    }
+
+    private static Element createElement(XMLStreamReader reader, Document doc) {
+        Element element = doc.createElementNS(emptyToNull(reader.getNamespaceURI()),
+            qualifiedName(reader.getPrefix(), reader.getLocalName()));
+        for(int i=0; i<reader.getNamespaceCount(); i++) {
+            String prefix = reader.getNamespacePrefix(i);
+            String uri = reader.getNamespaceURI(i);
+            element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+                isEmpty(prefix) ? "xmlns" : "xmlns:" + prefix, (uri == null) ? "" : uri);
+        }
+        for(int i=0; i<reader.getAttributeCount(); i++) {
+            element.setAttributeNS(emptyToNull(reader.getAttributeNamespace(i)),
+                qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+                reader.getAttributeValue(i));
+        }
+        return element;
+    }
+
+    /**
+     * Pass the events corresponding to a DOM subtree to the handler
+     */
+    private static void replay(Node node, EventHandler handler) throws XMLStreamException {
+        switch (node.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                handler.startElement(ElementEvent.of((Element) node));
+                for(Node child = node.getFirstChild(); child != null; child = child.getNextSibling())
+                    replay(child, handler);
+                handler.endElement();
+                break;
+            case Node.TEXT_NODE:
+                handler.characters(node.getNodeValue(), false);
+                break;
+            case Node.CDATA_SECTION_NODE:
+                handler.characters(node.getNodeValue(), true);
+                break;
+            case Node.COMMENT_NODE:
+                handler.comment(node.getNodeValue());
+                break;
+            case Node.PROCESSING_INSTRUCTION_NODE:
+                handler.processingInstruction(node.getNodeName(), node.getNodeValue());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static String qualifiedName(String prefix, String localName) {
+        return isEmpty(prefix) ? localName : prefix + ":" + localName;
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.length() == 0;
+    }
+
+    private static String emptyToNull(String value) {
+        return isEmpty(value) ? null : value;
+    }
+
+    /**
+     * Start tag of an element, with its namespace declarations and attributes
+     */
+    private static class ElementEvent {
+        String prefix;
+        String localName;
+        String namespaceURI;
+        // {prefix, uri}
+        List<String[]> namespaces = new ArrayList<>();
+        // {prefix, namespace, local name, value}
+        List<String[]> attributes = new ArrayList<>();
+
+        static ElementEvent of(XMLStreamReader reader) {
+            ElementEvent event = new ElementEvent();
+            event.prefix = reader.getPrefix();
+            event.localName = reader.getLocalName();
+            event.namespaceURI = reader.getNamespaceURI();
+            for(int i=0; i<reader.getNamespaceCount(); i++)
+                event.namespaces.add(new String[] {reader.getNamespacePrefix(i), reader.getNamespaceURI(i)});
+            for(int i=0; i<reader.getAttributeCount(); i++) {
+                event.attributes.add(new String[] {reader.getAttributePrefix(i), reader.getAttributeNamespace(i),
+                    reader.getAttributeLocalName(i), reader.getAttributeValue(i)});
+            }
+            return event;
+        }
+
+        static ElementEvent of(Element element) {
+            ElementEvent event = new ElementEvent();
+            event.prefix = element.getPrefix();
+            event.localName = (element.getLocalName() != null) ? element.getLocalName() : element.getNodeName();
+            event.namespaceURI = element.getNamespaceURI();
+            NamedNodeMap attributes = element.getAttributes();
+            for(int i=0; i<attributes.getLength(); i++) {
+                Attr attribute = (Attr) attributes.item(i);
+                if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+                    String prefix = "xmlns".equals(attribute.getName()) ? null : attribute.getLocalName();
+                    event.namespaces.add(new String[] {prefix, attribute.getValue()});
+                } else {
+                    String localName = (attribute.getLocalName() != null) ? attribute.getLocalName() : attribute.getName();
+                    event.attributes.add(new String[] {attribute.getPrefix(), attribute.getNamespaceURI(),
+                        localName, attribute.getValue()});
+                }
+            }
+            return event;
+        }
+
+        String getName() {
+            return qualifiedName(prefix, localName);
+        }
+
+        boolean hasAttribute(String namespace, String localName) {
+            return getAttribute(namespace, localName) != null;
+        }
+
+        String getAttribute(String namespace, String localName) {
+            for(String[] attribute : attributes) {
+                if (Objects.equals(emptyToNull(attribute[1]), namespace) && localName.equals(attribute[2]))
+                    return attribute[3];
+            }
+            return null;
+        }
+
+        void setAttribute(String prefix, String namespace, String localName, String value) {
+            attributes.removeIf(attribute ->
+                Objects.equals(emptyToNull(attribute[1]), namespace) && localName.equals(attribute[2]));
+            attributes.add(new String[] {prefix, namespace, localName, value});
+        }
+    }
+
+    private interface EventHandler {
+        void startElement(ElementEvent element) throws XMLStreamException;
+
+        void endElement() throws XMLStreamException;
+
+        void characters(String text, boolean cdata) throws XMLStreamException;
+
+        void comment(String text) throws XMLStreamException;
+
+        void processingInstruction(String target, String data) throws XMLStreamException;
+
+        /**
+         * @return the sentence boundaries of a textual element to be segmented
+         */
+        List<OffsetPosition> sentenceBoundaries(Element textualElement);
+    }
+
+    /**
+     * A section with the position of its sentences in the document
+     */
+    private static class StreamedSection extends DocumentSection {
+        // index of the <div> among all the <div> of the document
+        int divIndex;
+        // sentences of the paragraphs of the section and their index among all the <s> of the document
+        List<String> sentences = new ArrayList<>();
+        List<Integer> sentenceIndexes = new ArrayList<>();
+        // xml:id and coords attributes of the sentences, null if absent
+        List<String> sentenceIds = new ArrayList<>();
+        List<String> sentenceCoords = new ArrayList<>();
+    }
+
+    /**
+     * First pass: collect the text of the sections, in the same way as DataseerClassifier.enrich()
+     */
+    private class SectionCollector implements EventHandler {
+        List<StreamedSection> sections = new ArrayList<>();
+        boolean hasEncodingDesc = false;
+        boolean hasTeiHeader = false;
+
+        // width and height of the pages (<surface> of the <facsimile>), when coordinates are present
+        List<double[]> pages = new ArrayList<>();
+
+        // sentence boundaries of the segmented textual elements, in document order
+        List<List<OffsetPosition>> boundaries = new ArrayList<>();
+
+        private int divCount = 0;
+        private int sentenceCount = 0;
+
+        // open elements
+        private Deque<String> names = new ArrayDeque<>();
+        private Deque<Object> frames = new ArrayDeque<>();
+
+        // text of the open head, paragraph and sentence elements to be collected
+        private List<StringBuilder> openTexts = new ArrayList<>();
+
+        private final Object otherFrame = new Object();
+
+        private class HeadFrame {
+            StreamedSection section;
+            StringBuilder text = new StringBuilder();
+        }
+
+        private class ParagraphFrame {
+            StreamedSection section;
+            StringBuilder text = new StringBuilder();
+            List<String> sentences = new ArrayList<>();
+        }
+
+        private class SentenceFrame {
+            ParagraphFrame paragraph;
+            StringBuilder text = new StringBuilder();
+        }
+
+        @Override
+        public void startElement(ElementEvent element) {
+            String name = element.getName();
+            String parentName = names.peek();
+            Object parentFrame = frames.peek();
+            Object frame = otherFrame;
+
+            if ("s".equals(name)) {
+                int sentenceIndex = sentenceCount++;
+                if (parentFrame instanceof ParagraphFrame) {
+                    SentenceFrame sentenceFrame = new SentenceFrame();
+                    sentenceFrame.paragraph = (ParagraphFrame) parentFrame;
+                    StreamedSection section = sentenceFrame.paragraph.section;
+                    section.sentenceIndexes.add(sentenceIndex);
+                    section.sentenceIds.add(element.getAttribute(XMLConstants.XML_NS_URI, "id"));
+                    section.sentenceCoords.add(element.getAttribute(null, "coords"));
+                    frame = sentenceFrame;
+                }
+            } else if ("div".equals(name)) {
+                int divIndex = divCount++;
+                // sections under <abstract> and <figDesc> are ignored
+                if (!"abstract".equals(parentName) && !"figDesc".equals(parentName)) {
+                    StreamedSection section = new StreamedSection();
+                    section.divIndex = divIndex;
+                    sections.add(section);
+                    frame = section;
+                }
+            } else if ("head".equals(name)) {
+                // only the first head of a section is considered
+                if (parentFrame instanceof StreamedSection && !((StreamedSection) parentFrame).hasHead()) {
+                    HeadFrame headFrame = new HeadFrame();
+                    headFrame.section = (StreamedSection) parentFrame;
+                    headFrame.section.setHead("");
+                    frame = headFrame;
+                }
+            } else if ("p".equals(name)) {
+                if (parentFrame instanceof StreamedSection) {
+                    ParagraphFrame paragraphFrame = new ParagraphFrame();
+                    paragraphFrame.section = (StreamedSection) parentFrame;
+                    frame = paragraphFrame;
+                }
+            } else if ("surface".equals(name) && "facsimile".equals(parentName)) {
+                pages.add(new double[] {
+                    parseCoordinate(element.getAttribute(null, "lrx")) - parseCoordinate(element.getAttribute(null, "ulx")),
+                    parseCoordinate(element.getAttribute(null, "lry")) - parseCoordinate(element.getAttribute(null, "uly")) });
+            } else if ("encodingDesc".equals(name)) {
+                hasEncodingDesc = true;
+            } else if ("teiHeader".equals(name)) {
+                hasTeiHeader = true;
+            }
+
+            names.push(name);
+            frames.push(frame);
+            StringBuilder text = textOf(frame);
+            if (text != null)
+                openTexts.add(text);
+        }
+
+        @Override
+        public void endElement() {
+            names.pop();
+            Object frame = frames.pop();
+            StringBuilder text = textOf(frame);
+            if (text != null)
+                openTexts.remove(openTexts.size()-1);
+
+            if (frame instanceof HeadFrame) {
+                ((HeadFrame) frame).section.setHead(text.toString());
+            } else if (frame instanceof ParagraphFrame) {
+                ParagraphFrame paragraphFrame = (ParagraphFrame) frame;
+                paragraphFrame.section.addParagraph(text.toString(), paragraphFrame.sentences);
+                paragraphFrame.section.sentences.addAll(paragraphFrame.sentences);
+            } else if (frame instanceof SentenceFrame) {
+                ((SentenceFrame) frame).paragraph.sentences.add(text.toString());
+            }
+        }
+
+        private double parseCoordinate(String value) {
+            if (isEmpty(value))
+                return 0.0;
+            try {
+                return Double.parseDouble(value);
+            } catch(NumberFormatException e) {
+                return 0.0;
+            }
+        }
+
+        private StringBuilder textOf(Object frame) {
+            if (frame instanceof HeadFrame)
+                return ((HeadFrame) frame).text;
+            if (frame instanceof ParagraphFrame)
+                return ((ParagraphFrame) frame).text;
+            if (frame instanceof SentenceFrame)
+                return ((SentenceFrame) frame).text;
+            return null;
+        }
+
+        @Override
+        public void characters(String text, boolean cdata) {
+            for(StringBuilder openText : openTexts)
+                openText.append(text);
+        }
+
+        @Override
+        public void comment(String text) {
+        }
+
+        @Override
+        public void processingInstruction(String target, String data) {
+        }
+
+        @Override
+        public List<OffsetPosition> sentenceBoundaries(Element textualElement) {
+            List<OffsetPosition> theBoundaries =
+                SentenceUtilities.getInstance().runSentenceDetection(textualElement.getTextContent());
+            boundaries.add(theBoundaries);
+            return theBoundaries;
+        }
+    }
+
+    /**
+     * Result of the classification to be injected in the second pass
+     */
+    private static class Enrichment {
+        // index of the sentence among all the <s> of the document -> dataInstance id
+        Map<Integer, String> sentenceDataInstances = new HashMap<>();
+        // index of the <div> to be marked with the dataseer subtype
+        BitSet dataseerDivs = new BitSet();
+
+        // same content and order as the lists built by DataseerClassifier.enrich()
+        Map<String, String> datasetMap = new TreeMap<>();
+        Map<String, String> dataInstanceMap = new TreeMap<>();
+        Map<String, Double> dataInstanceScoreMap = new TreeMap<>();
+        Map<String, Boolean> dataInstanceReuseMap = new TreeMap<>();
+
+        // dataset sentences in document order, for the annotation layer
+        List<DatasetSentence> datasetSentences = new ArrayList<>();
+    }
+
+    /**
+     * A sentence introducing a dataset, with its position in the PDF
+     */
+    private static class DatasetSentence {
+        String dataInstanceId;
+        String sentenceId;
+        String coords;
+        String dataType;
+        double cert;
+        boolean reuse;
+    }
+
+    /**
+     * Second pass: copy the document to the output with the enrichment
+     */
+    private class EnrichedWriter implements EventHandler {
+        private final XMLStreamWriter writer;
+        private final SectionCollector collector;
+        private final Enrichment enrichment;
+
+        private int divCount = 0;
+        private int sentenceCount = 0;
+        private int segmentedCount = 0;
+
+        // name and in-scope default namespace of the open elements
+        private Deque<String> names = new ArrayDeque<>();
+        private Deque<String> defaultNamespaces = new ArrayDeque<>();
+
+        private boolean listsWritten = false;
+
+        EnrichedWriter(XMLStreamWriter writer, SectionCollector collector, Enrichment enrichment) throws XMLStreamException {
+            this.writer = writer;
+            this.collector = collector;
+            this.enrichment = enrichment;
+            writer.writeStartDocument("UTF-8", "1.0");
+        }
+
+        @Override
+        public void startElement(ElementEvent element) throws XMLStreamException {
+            String name = element.getName();
+            if ("s".equals(name)) {
+                int sentenceIndex = sentenceCount++;
+                if (!element.hasAttribute(XMLConstants.XML_NS_URI, "id"))
+                    element.setAttribute("xml", XMLConstants.XML_NS_URI, "id", "sentence-"+sentenceIndex);
+                String dataInstanceId = enrichment.sentenceDataInstances.get(sentenceIndex);
+                if (dataInstanceId != null)
+                    element.setAttribute(null, null, "corresp", "#"+dataInstanceId);
+            } else if ("div".equals(name)) {
+                int divIndex = divCount++;
+                if (enrichment.dataseerDivs.get(divIndex))
+                    element.setAttribute(null, null, "subtype", "dataseer");
+            }
+
+            String defaultNamespace = defaultNamespaces.isEmpty() ? "" : defaultNamespaces.peek();
+            boolean declaresDefault = false;
+            for(String[] namespace : element.namespaces) {
+                if (isEmpty(namespace[0])) {
+                    defaultNamespace = (namespace[1] == null) ? "" : namespace[1];
+                    declaresDefault = true;
+                }
+            }
+
+            String namespaceURI = (element.namespaceURI == null) ? "" : element.namespaceURI;
+            writer.writeStartElement((element.prefix == null) ? "" : element.prefix, element.localName, namespaceURI);
+            for(String[] namespace : element.namespaces) {
+                if (isEmpty(namespace[0]))
+                    writer.writeDefaultNamespace(namespace[1]);
+                else
+                    writer.writeNamespace(namespace[0], namespace[1]);
+            }
+            // elements created by the segmentation might need a declaration of their namespace
+            if (isEmpty(element.prefix) && !declaresDefault && !namespaceURI.equals(defaultNamespace)) {
+                writer.writeDefaultNamespace(namespaceURI);
+                defaultNamespace = namespaceURI;
+            }
+            for(String[] attribute : element.attributes) {
+                if (isEmpty(attribute[1]))
+                    writer.writeAttribute(attribute[2], attribute[3]);
+                else
+                    writer.writeAttribute((attribute[0] == null) ? "" : attribute[0], attribute[1], attribute[2], attribute[3]);
+            }
+
+            names.push(name);
+            defaultNamespaces.push(defaultNamespace);
+        }
+
+        @Override
+        public void endElement() throws XMLStreamException {
+            String name = names.pop();
+            if (!listsWritten) {
+                if (collector.hasEncodingDesc) {
+                    if ("encodingDesc".equals(name)) {
+                        writeLists();
+                        listsWritten = true;
+                    }
+                } else if (collector.hasTeiHeader) {
+                    if ("teiHeader".equals(name)) {
+                        writeStartElement("encodingDesc");
+                        writeLists();
+                        writer.writeEndElement();
+                        listsWritten = true;
+                    }
+                } else if (names.isEmpty()) {
+                    // no header at all, we inject one at the end of the root element
+                    writeStartElement("teiHeader");
+                    writeStartElement("encodingDesc");
+                    writeLists();
+                    writer.writeEndElement();
+                    writer.writeEndElement();
+                    listsWritten = true;
+                }
+            }
+            writer.writeEndElement();
+            defaultNamespaces.pop();
+        }
+
+        @Override
+        public void characters(String text, boolean cdata) throws XMLStreamException {
+            if (cdata)
+                writer.writeCData(text);
+            else
+                writer.writeCharacters(text);
+        }
+
+        @Override
+        public void comment(String text) throws XMLStreamException {
+            writer.writeComment(text);
+        }
+
+        @Override
+        public void processingInstruction(String target, String data) throws XMLStreamException {
+            if (isEmpty(data))
+                writer.writeProcessingInstruction(target);
+            else
+                writer.writeProcessingInstruction(target, data);
+        }
+
+        @Override
+        public List<OffsetPosition> sentenceBoundaries(Element textualElement) {
+            // same segmentation as in the first pass
+            return collector.boundaries.get(segmentedCount++);
+        }
+
+        /**
+         * Start a TEI element created by the enrichment, declaring the TEI namespace if needed
+         */
+        private void writeStartElement(String localName) throws XMLStreamException {
+            writer.writeStartElement("", localName, TEI_NS);
+            String defaultNamespace = defaultNamespaces.isEmpty() ? "" : defaultNamespaces.peek();
+            if (!TEI_NS.equals(defaultNamespace))
+                writer.writeDefaultNamespace(TEI_NS);
+        }
+
+        private void writeLists() throws XMLStreamException {
+            if (!enrichment.datasetMap.isEmpty()) {
+                writeStartElement("list");
+                writer.writeAttribute("type", "dataset");
+                for (Map.Entry<String, String> entry : enrichment.datasetMap.entrySet()) {
+                    writeStartElement("dataset");
+                    writer.writeAttribute("xml", XMLConstants.XML_NS_URI, "id", entry.getKey());
+                    for (Map.Entry<String, String> attribute : DataseerClassifier.getDatasetAttributes(entry.getValue()).entrySet())
+                        writer.writeAttribute(attribute.getKey(), attribute.getValue());
+                    writer.writeEndElement();
+                }
+                writer.writeEndElement();
+            }
+
+            if (!enrichment.dataInstanceMap.isEmpty()) {
+                writeStartElement("list");
+                writer.writeAttribute("type", "dataInstance");
+                for (Map.Entry<String, String> entry : enrichment.dataInstanceMap.entrySet()) {
+                    writeStartElement("dataInstance");
+                    writer.writeAttribute("xml", XMLConstants.XML_NS_URI, "id", entry.getKey());
+                    writer.writeAttribute("corresp", "#"+entry.getValue());
+                    Boolean reuse = enrichment.dataInstanceReuseMap.get(entry.getKey());
+                    if (reuse != null)
+                        writer.writeAttribute("reuse", reuse.toString());
+                    Double cert = enrichment.dataInstanceScoreMap.get(entry.getKey());
+                    if (cert != null)
+                        writer.writeAttribute("cert", cert.toString());
+                    writer.writeEndElement();
+                }
+                writer.writeEndElement();
+            }
+        }
+    }
+}
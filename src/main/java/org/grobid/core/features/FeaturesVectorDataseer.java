@@ -36,28 +36,36 @@ public class FeaturesVectorDataseer {
 
     public boolean materialsAndMethodPattern = false; // true if match a generic "materials and method" header
 
+    // lowercased string features for the keyword matches, built at the first match
+    private String lowerCaseFeatures = null;
+
     public String printVector() {
         if (string == null) return null;
         if (string.length() == 0) return null;
-        StringBuffer res = new StringBuffer();
+        StringBuilder res = new StringBuilder();
+        appendVector(res);
+        return res.toString();
+    }
+
+    /**
+     * Append the feature vector line to the given builder, without intermediary strings
+     * @return false if there is no vector for these features
+     */
+    public boolean appendVector(StringBuilder res) {
+        if (string == null) return false;
+        if (string.length() == 0) return false;
 
         // token string (0)
         res.append(string);
         
         // second token string (1)
-        if (secondString != null)
-            res.append(" " + secondString);
-        else
-            res.append(" " + string);
+        res.append(' ').append((secondString != null) ? secondString : string);
 
         // third token string (2)
-        if (thirdString != null) 
-            res.append(" " + thirdString);
-        else
-            res.append(" " + string);
+        res.append(' ').append((thirdString != null) ? thirdString : string);
         
         // lowercase string (3)
-        res.append(" " + string.toLowerCase());
+        res.append(' ').append(string.toLowerCase());
 
         // prefix (4)
         /*res.append(" " + TextUtilities.prefix(string, 1));
@@ -65,22 +73,13 @@ public class FeaturesVectorDataseer {
         res.append(" " + TextUtilities.prefix(string, 3));
         res.append(" " + TextUtilities.prefix(string, 4));*/
 
-        if (sectionType != null)
-            res.append(" " + sectionType);
-        else
-            res.append(" p");
+        res.append(' ').append((sectionType != null) ? sectionType : "p");
 
-        if (has_dataset)
-            res.append(" 1");
-        else
-            res.append(" 0");
+        res.append(has_dataset ? " 1" : " 0");
 
-        res.append(" " + nbDataset);
+        res.append(' ').append(nbDataset);
 
-        if (datasetType != null)
-            res.append(" " + datasetType);
-        else
-            res.append(" no_dataset");
+        res.append(' ').append((datasetType != null) ? datasetType : "no_dataset");
 
         // capitalisation (1)
         /*if (digit.equals("ALLDIGIT"))
@@ -102,7 +101,7 @@ public class FeaturesVectorDataseer {
             res.append(" " + punctType); // in case the token is a punctuation (NO otherwise)*/
 
         // relative document position (1)
-        res.append(" " + relativeDocumentPosition);
+        res.append(' ').append(relativeDocumentPosition);
         
         // punctuation profile
         /*if ( (punctuationProfile == null) || (punctuationProfile.length() == 0) ) {
@@ -119,17 +118,38 @@ public class FeaturesVectorDataseer {
         }*/
 
         // current segment length on a predefined scale and relative to the longest segment
-        res.append(" " + segmentLength);
+        res.append(' ').append(segmentLength);
 
         // materials and methods pattern
-        if (materialsAndMethodPattern)
-            res.append(" 1");
-        else
-            res.append(" 0");
+        res.append(materialsAndMethodPattern ? " 1" : " 0");
 
-        res.append("\n");
+        res.append('\n');
 
-        return res.toString();
+        return true;
+    }
+
+    /**
+     * @return true if one of the string features of the vector contains the given lowercase 
+     * keyword, ignoring case. The features are lowercased once, at the first call, so they must
+     * not be modified afterwards.
+     */
+    public boolean containsIgnoreCase(String keyword) {
+        if (string == null)
+            return false;
+        if (lowerCaseFeatures == null) {
+            // features separated by a newline, which never occurs in a keyword
+            StringBuilder builder = new StringBuilder();
+            builder.append(string);
+            if (secondString != null)
+                builder.append('\n').append(secondString);
+            if (thirdString != null)
+                builder.append('\n').append(thirdString);
+            if (sectionType != null)
+                builder.append('\n').append(sectionType);
+            builder.append('\n').append((datasetType != null) ? datasetType : "no_dataset");
+            lowerCaseFeatures = builder.toString().toLowerCase();
+        }
+        return lowerCaseFeatures.contains(keyword);
     }
 
 }
\ No newline at end of file
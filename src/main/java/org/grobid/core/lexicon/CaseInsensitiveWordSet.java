@@ -0,0 +1,78 @@
+package org.grobid.core.lexicon;
+
+import java.util.Collection;
+
+/**
+ * Immutable set of words with case-insensitive lookup. Words are stored lowercased in an open
+ * addressing hash table of char arrays, a lookup hashes and compares the characters of the
+ * looked-up sequence lowercased on the fly, so that it does not allocate anything.
+ */
+public class CaseInsensitiveWordSet {
+
+    private final char[][] table;
+    private final int mask;
+    private final int size;
+
+    public CaseInsensitiveWordSet(Collection<String> words) {
+        // load factor at most 0.5
+        int capacity = 2;
+        while (capacity < words.size() * 2)
+            capacity <<= 1;
+        this.table = new char[capacity][];
+        this.mask = capacity - 1;
+
+        int count = 0;
+        for (String word : words) {
+            if (word == null || word.length() == 0)
+                continue;
+            char[] lowerWord = new char[word.length()];
+            for (int i = 0; i < word.length(); i++)
+                lowerWord[i] = Character.toLowerCase(word.charAt(i));
+            int index = hash(word) & mask;
+            while (table[index] != null) {
+                if (equals(table[index], word))
+                    break;
+                index = (index + 1) & mask;
+            }
+            if (table[index] == null) {
+                table[index] = lowerWord;
+                count++;
+            }
+        }
+        this.size = count;
+    }
+
+    public boolean contains(CharSequence value) {
+        if (value == null || value.length() == 0)
+            return false;
+        int index = hash(value) & mask;
+        while (table[index] != null) {
+            if (equals(table[index], value))
+                return true;
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static int hash(CharSequence value) {
+        int h = 0;
+        for (int i = 0; i < value.length(); i++)
+            h = 31 * h + Character.toLowerCase(value.charAt(i));
+        // spread the bits, as the table index only uses the low bits
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean equals(char[] lowerWord, CharSequence value) {
+        if (lowerWord.length != value.length())
+            return false;
+        for (int i = 0; i < lowerWord.length; i++) {
+            if (lowerWord[i] != Character.toLowerCase(value.charAt(i)))
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,300 @@
+package org.grobid.core.lexicon;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * In-memory index of the taxonomy of data types (type -> subtype -> leaf), loaded once from
+ * resources/DataTypes.json (data types with their metadata: label, wiki url, MeSH id, description)
+ * and resources/fulltypes.json (full hierarchy, including the leaf types not described in the
+ * wiki). The index is immutable, a data type is looked up by name or label in constant time and
+ * gives directly its chain of parents.
+ *
+ * Names are normalized for the lookup: lower case, underscores as spaces, single spaces, so that
+ * the labels of the classifiers and the names of the json resources match.
+ */
+public class DataTypeTaxonomy {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataTypeTaxonomy.class);
+
+    private static volatile DataTypeTaxonomy instance;
+
+    private static final String DATA_TYPES_PATH = "resources/DataTypes.json";
+    private static final String FULL_TYPES_PATH = "resources/fulltypes.json";
+
+    // metadata fields of a data type in DataTypes.json, the other object fields are subtypes
+    private static final Set<String> METADATA_FIELDS = new HashSet<>(Arrays.asList(
+        "label", "url", "mesh_id", "description", "best_practice", "most_suitable_repositories", "count"));
+
+    /**
+     * A data type of the taxonomy, with its metadata and its parent chain
+     */
+    public static final class DataType {
+        private final String name;
+        private final String label;
+        private final String url;
+        private final String meshId;
+        private final String description;
+        private final DataType parent;
+        // from the top-level type to this data type
+        private final List<DataType> chain;
+
+        private DataType(String name, String label, String url, String meshId, String description, DataType parent) {
+            this.name = name;
+            this.label = (label != null) ? label : name;
+            this.url = url;
+            this.meshId = meshId;
+            this.description = description;
+            this.parent = parent;
+            List<DataType> theChain = new ArrayList<>();
+            if (parent != null)
+                theChain.addAll(parent.chain);
+            theChain.add(this);
+            this.chain = Collections.unmodifiableList(theChain);
+        }
+
+        /**
+         * Normalized name, as used in DataTypes.json
+         */
+        public String getName() {
+            return name;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public String getMeshId() {
+            return meshId;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public DataType getParent() {
+            return parent;
+        }
+
+        /**
+         * 0 for a top-level type, 1 for a subtype, 2 for a leaf type
+         */
+        public int getLevel() {
+            return chain.size() - 1;
+        }
+
+        public List<DataType> getChain() {
+            return chain;
+        }
+
+        /**
+         * @return the top-level type of this data type
+         */
+        public DataType getType() {
+            return chain.get(0);
+        }
+
+        /**
+         * @return the subtype of this data type, null for a top-level type
+         */
+        public DataType getSubtype() {
+            return (chain.size() > 1) ? chain.get(1) : null;
+        }
+
+        /**
+         * @return the url of the most specific data type of the chain having a wiki page
+         */
+        public String getClosestUrl() {
+            for (int i = chain.size() - 1; i >= 0; i--) {
+                if (chain.get(i).url != null)
+                    return chain.get(i).url;
+            }
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private final Map<String, DataType> index;
+
+    public static DataTypeTaxonomy getInstance() {
+        if (instance == null) {
+            getNewInstance();
+        }
+        return instance;
+    }
+
+    private static synchronized void getNewInstance() {
+        if (instance == null) {
+            LOGGER.info("Init data type taxonomy");
+            instance = load(new File(DATA_TYPES_PATH), new File(FULL_TYPES_PATH));
+        }
+    }
+
+    /**
+     * Load the taxonomy from the two json resource files, a missing file gives an empty taxonomy
+     * for its part
+     */
+    static DataTypeTaxonomy load(File dataTypesFile, File fullTypesFile) {
+        JsonNode dataTypes = readJson(dataTypesFile);
+        JsonNode fullTypes = readJson(fullTypesFile);
+        return new DataTypeTaxonomy(dataTypes, fullTypes);
+    }
+
+    private static JsonNode readJson(File file) {
+        file = file.getAbsoluteFile();
+        if (!file.exists()) {
+            LOGGER.warn("Data type resource file '" + file.getPath() + "' does not exist");
+            return null;
+        }
+        try {
+            return new ObjectMapper().readTree(file);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot read data type resource file '" + file.getPath() + "'", e);
+            return null;
+        }
+    }
+
+    DataTypeTaxonomy(JsonNode dataTypes, JsonNode fullTypes) {
+        Map<String, DataType> theIndex = new HashMap<>();
+        if (dataTypes != null) {
+            addDataTypes(dataTypes, null, theIndex);
+            // the labels are also valid names
+            for (DataType dataType : new ArrayList<>(theIndex.values())) {
+                String label = normalize(dataType.label);
+                if (!theIndex.containsKey(label))
+                    theIndex.put(label, dataType);
+            }
+        }
+        if (fullTypes != null)
+            addFullTypes(fullTypes, null, theIndex);
+        this.index = Collections.unmodifiableMap(theIndex);
+    }
+
+    /**
+     * DataTypes.json: a data type is an object with metadata fields and one object field per subtype.
+     * A name present under several parents (e.g. "sequence alignment" under genetic data and
+     * protein data) is resolved to its first occurrence in the file, the ambiguity is logged. The
+     * subtypes under the other occurrences are still indexed with their own parent chain.
+     */
+    private static void addDataTypes(JsonNode node, DataType parent, Map<String, DataType> theIndex) {
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode value = field.getValue();
+            if (!value.isObject() || METADATA_FIELDS.contains(field.getKey()))
+                continue;
+            String name = normalize(field.getKey());
+            if (name.length() == 0)
+                continue;
+            DataType dataType = new DataType(name, text(value, "label"), text(value, "url"),
+                text(value, "mesh_id"), text(value, "description"), parent);
+            DataType existing = theIndex.get(name);
+            if (existing == null) {
+                theIndex.put(name, dataType);
+            } else {
+                LOGGER.warn("Ambiguous data type '" + name + "' under " + path(existing.getParent()) + 
+                    " and " + path(parent) + ", resolved to " + path(existing));
+            }
+            addDataTypes(value, dataType, theIndex);
+        }
+    }
+
+    private static String path(DataType dataType) {
+        if (dataType == null)
+            return "the root";
+        StringBuilder builder = new StringBuilder();
+        for (DataType element : dataType.getChain()) {
+            if (builder.length() > 0)
+                builder.append(" / ");
+            builder.append(element.getName());
+        }
+        return "'" + builder.toString() + "'";
+    }
+
+    /**
+     * fulltypes.json: nested objects for the types and subtypes, arrays of names for the leaf
+     * types. Data types already known from DataTypes.json are kept as they are.
+     */
+    private static void addFullTypes(JsonNode node, DataType parent, Map<String, DataType> theIndex) {
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                DataType dataType = addFullType(field.getKey(), parent, theIndex);
+                if (dataType != null)
+                    addFullTypes(field.getValue(), dataType, theIndex);
+            }
+        } else if (node.isArray()) {
+            for (JsonNode child : node) {
+                if (child.isTextual())
+                    addFullType(child.asText(), parent, theIndex);
+            }
+        }
+    }
+
+    private static DataType addFullType(String fullName, DataType parent, Map<String, DataType> theIndex) {
+        String name = normalize(fullName);
+        if (name.length() == 0)
+            return null;
+        DataType dataType = theIndex.get(name);
+        if (dataType == null) {
+            dataType = new DataType(name, fullName, null, null, null, parent);
+            theIndex.put(name, dataType);
+        }
+        return dataType;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return (value != null && value.isValueNode() && !value.isNull()) ? value.asText() : null;
+    }
+
+    /**
+     * Normalized form of a data type name or label
+     */
+    static String normalize(String name) {
+        if (name == null)
+            return "";
+        StringBuilder builder = new StringBuilder(name.length());
+        boolean space = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '_' || Character.isWhitespace(c)) {
+                space = builder.length() > 0;
+            } else {
+                if (space)
+                    builder.append(' ');
+                space = false;
+                builder.append(Character.toLowerCase(c));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return the data type for the given name or label, null if it is not in the taxonomy
+     */
+    public DataType getDataType(String name) {
+        if (name == null)
+            return null;
+        return index.get(normalize(name));
+    }
+
+    public boolean isEmpty() {
+        return index.isEmpty();
+    }
+}
@@ -14,7 +14,9 @@ import java.io.*;
 import java.util.HashSet;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Class for managing the lexical resources for dataseer
@@ -43,7 +45,13 @@ public class DataseerLexicon {
 
     private static volatile DataseerLexicon instance;
 
-    private List<String> englishStopwords = null;
+    private CaseInsensitiveWordSet englishStopwords = null;
+
+    // additional domain lexicons (repository names, dataset keywords, etc.), loaded on demand
+    // from resources/lexicon/<name>.txt
+    private final Map<String, CaseInsensitiveWordSet> lexicons = new ConcurrentHashMap<>();
+
+    private static final String LEXICON_PATH = "resources/lexicon/";
 
     public static synchronized DataseerLexicon getInstance() {
         if (instance == null)
@@ -58,8 +66,7 @@ public class DataseerLexicon {
         LOGGER.info("Init dataseer lexicon");
 
         // a list of stopwords for English for conservative checks with names
-        englishStopwords = new ArrayList<>();
-        File file = new File("resources/lexicon/stopwords_en.txt");
+        File file = new File(LEXICON_PATH + "stopwords_en.txt");
         file = new File(file.getAbsolutePath());
         if (!file.exists()) {
             throw new GrobidResourceException("Cannot initialize English stopwords, because file '" + 
@@ -69,6 +76,14 @@ public class DataseerLexicon {
             throw new GrobidResourceException("Cannot initialize English stopwords, because cannot read file '" + 
                 file.getAbsolutePath() + "'.");
         }
+        englishStopwords = loadWordSet(file);
+    }
+
+    /**
+     * Load a word list file, one entry per line, into a word set
+     */
+    private static CaseInsensitiveWordSet loadWordSet(File file) {
+        List<String> words = new ArrayList<>();
         // read the file
         BufferedReader dis = null;
         try {
@@ -76,12 +91,12 @@ public class DataseerLexicon {
             String l = null;
             while ((l = dis.readLine()) != null) {
                 if (l.length() == 0) continue;
-                englishStopwords.add(l.trim());
+                words.add(l.trim());
             }
         } catch (FileNotFoundException e) {
-            throw new GrobidException("English stopwords file not found.", e);
+            throw new GrobidException("Lexicon file not found: " + file.getPath(), e);
         } catch (IOException e) {
-            throw new GrobidException("Cannot read English stopwords file.", e);
+            throw new GrobidException("Cannot read lexicon file: " + file.getPath(), e);
         } finally {
             try {
                 if (dis != null)
@@ -90,13 +105,41 @@ public class DataseerLexicon {
                 throw new GrobidResourceException("Cannot close IO stream.", e);
             }
         }
+        return new CaseInsensitiveWordSet(words);
     }
 
-    public boolean isEnglishStopword(String value) {
+    /**
+     * Case-insensitive check, without allocation
+     */
+    public boolean isEnglishStopword(CharSequence value) {
         if (this.englishStopwords == null || value == null)
             return false;
-        if (value.length() == 1) 
-            value = value.toLowerCase();
         return this.englishStopwords.contains(value);
     }
+
+    /**
+     * Get a domain lexicon by name, the lexicon file resources/lexicon/<name>.txt is loaded 
+     * at the first access
+     */
+    public CaseInsensitiveWordSet getLexicon(String name) {
+        return lexicons.computeIfAbsent(name, n -> {
+            File file = new File(LEXICON_PATH + n + ".txt").getAbsoluteFile();
+            if (!file.exists() || !file.canRead()) {
+                throw new GrobidResourceException("Cannot initialize the lexicon " + n + 
+                    ", because file '" + file.getAbsolutePath() + "' cannot be read.");
+            }
+            CaseInsensitiveWordSet lexicon = loadWordSet(file);
+            LOGGER.info("Lexicon " + n + " loaded: " + lexicon.size() + " entries");
+            return lexicon;
+        });
+    }
+
+    /**
+     * Case-insensitive check of a value in a domain lexicon
+     */
+    public boolean isInLexicon(String name, CharSequence value) {
+        if (value == null)
+            return false;
+        return getLexicon(name).contains(value);
+    }
 }
@@ -0,0 +1,393 @@
+package org.grobid.core.main.batch;
+
+import org.grobid.core.engines.DataseerClassifier;
+import org.grobid.core.engines.GrobidProfile;
+import org.grobid.core.main.GrobidHomeFinder;
+import org.grobid.core.main.LibraryLoader;
+import org.grobid.core.utilities.DataseerConfiguration;
+import org.grobid.core.utilities.GrobidConfig.ModelParameters;
+import org.grobid.core.utilities.GrobidProperties;
+import org.grobid.core.utilities.StageTimings;
+import org.grobid.core.utilities.XMLUtilities;
+
+import org.xml.sax.InputSource;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+/**
+ * Batch processing of a directory or a list of documents (PDF, TEI or publisher XML), without
+ * going through the web service. Documents flow through a pipeline of stages (conversion,
+ * sentence segmentation, classification, writing), each stage with its own number of worker
+ * threads, so that GROBID/Pub2TEI conversion and the classifiers are busy at the same time.
+ *
+ * The enriched TEI documents are written under the output directory with the same relative
+ * path as the input, with the extension .dataseer.tei.xml. Documents already processed are
+ * skipped, so an interrupted run can simply be restarted.
+ */
+public class DataseerMain {
+
+    private static final String USAGE = "Usage: DataseerMain -dIn {input directory} | -list {file listing the input documents} "
+            + "-dOut {output directory} [-gH {path to grobid-home}] "
+            + "[-nbConvert {nb threads}] [-nbSegment {nb threads}] [-nbClassify {nb threads}] [-nbWrite {nb threads}] "
+            + "[-queue {size of the queues between stages}] [-profile {GROBID profile for PDF}] [-force]";
+
+    public static final String OUTPUT_EXTENSION = ".dataseer.tei.xml";
+
+    // interval in seconds between two progress reports
+    private static final int REPORT_INTERVAL = 30;
+
+    enum InputType {
+        PDF, TEI, JATS;
+
+        static InputType of(File file) {
+            String name = file.getName().toLowerCase();
+            if (name.endsWith(OUTPUT_EXTENSION))
+                return null;
+            if (name.endsWith(".pdf"))
+                return PDF;
+            if (name.endsWith(".tei.xml") || name.endsWith(".tei"))
+                return TEI;
+            if (name.endsWith(".xml") || name.endsWith(".nxml"))
+                return JATS;
+            return null;
+        }
+    }
+
+    /**
+     * A document moving through the pipeline
+     */
+    static class BatchDocument {
+        final File input;
+        final File output;
+        final InputType type;
+        org.w3c.dom.Document document;
+
+        BatchDocument(File input, File output, InputType type) {
+            this.input = input;
+            this.output = output;
+            this.type = type;
+        }
+    }
+
+    private final DataseerClassifier classifier;
+
+    // GROBID conversion profile of the PDF documents, the configured one if null
+    private GrobidProfile profile = null;
+
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private int skipped = 0;
+
+    public DataseerMain(DataseerClassifier classifier) {
+        this.classifier = classifier;
+    }
+
+    public void setProfile(GrobidProfile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Initialize GROBID and the dataseer models.
+     */
+    protected static DataseerConfiguration initProcess(String grobidHome) throws IOException {
+        ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+        DataseerConfiguration dataseerConfiguration =
+            mapper.readValue(new File("resources/config/dataseer-ml.yml").getAbsoluteFile(), DataseerConfiguration.class);
+        if (grobidHome == null)
+            grobidHome = dataseerConfiguration.getGrobidHome();
+
+        GrobidHomeFinder grobidHomeFinder = new GrobidHomeFinder(Arrays.asList(grobidHome));
+        grobidHomeFinder.findGrobidHomeOrFail();
+        GrobidProperties.getInstance(grobidHomeFinder);
+        if (dataseerConfiguration.getModels() != null) {
+            for (ModelParameters model : dataseerConfiguration.getModels())
+                GrobidProperties.getInstance().addModel(model);
+        }
+        LibraryLoader.load();
+        return dataseerConfiguration;
+    }
+
+    /**
+     * List the documents to be processed, with their output file. Documents having already
+     * an output file are skipped, except if force is true. For a list of documents (null 
+     * inputRoot), the output path is relative to the common parent directory of the documents.
+     * Two documents with the same output path (e.g. a.pdf and a.xml) are reported and the 
+     * output of the second one gets a numbered suffix, the inputs being always given in the 
+     * same order the same document gets the same output in the next runs.
+     */
+    List<BatchDocument> collect(List<File> inputs, File inputRoot, File outputDirectory, boolean force) {
+        List<BatchDocument> documents = new ArrayList<>();
+        Path root = (inputRoot != null) ? inputRoot.toPath() : commonParent(inputs);
+        // output names in lower case, for case insensitive file systems -> input
+        Map<String, File> outputInputs = new HashMap<>();
+        for (File input : inputs) {
+            InputType type = InputType.of(input);
+            if (type == null)
+                continue;
+            String relativePath = (inputRoot != null) ?
+                root.relativize(input.toPath()).toString() : relativePath(root, input);
+            String name = outputName(relativePath);
+            String uniqueName = name;
+            for (int suffix = 1; outputInputs.containsKey(uniqueName.toLowerCase()); suffix++)
+                uniqueName = outputName(relativePath + "." + suffix);
+            if (!uniqueName.equals(name)) {
+                System.err.println("Warning: " + input.getPath() + " has the same output as " + 
+                    outputInputs.get(name.toLowerCase()).getPath() + ", it is written to " + uniqueName);
+            }
+            outputInputs.put(uniqueName.toLowerCase(), input);
+            File output = new File(outputDirectory, uniqueName);
+            if (!force && output.exists()) {
+                skipped++;
+                continue;
+            }
+            documents.add(new BatchDocument(input, output, type));
+        }
+        return documents;
+    }
+
+    /**
+     * @return the deepest directory containing all the files, null if there is none
+     */
+    static Path commonParent(List<File> files) {
+        Path common = null;
+        boolean first = true;
+        for (File file : files) {
+            Path parent = file.getAbsoluteFile().toPath().normalize().getParent();
+            if (first) {
+                common = parent;
+                first = false;
+            }
+            while (common != null && (parent == null || !parent.startsWith(common)))
+                common = common.getParent();
+        }
+        return common;
+    }
+
+    private static String relativePath(Path root, File file) {
+        if (root == null)
+            return file.getName();
+        return root.relativize(file.getAbsoluteFile().toPath().normalize()).toString();
+    }
+
+    static String outputName(String path) {
+        String lowerPath = path.toLowerCase();
+        for (String extension : Arrays.asList(".tei.xml", ".pdf", ".nxml", ".xml", ".tei")) {
+            if (lowerPath.endsWith(extension))
+                return path.substring(0, path.length() - extension.length()) + OUTPUT_EXTENSION;
+        }
+        return path + OUTPUT_EXTENSION;
+    }
+
+    /**
+     * Run the pipeline on the given documents
+     */
+    public void process(List<BatchDocument> documents, int nbConvert, int nbSegment, int nbClassify, int nbWrite,
+                        int queueSize) throws InterruptedException {
+        StagedPipeline<BatchDocument> pipeline = new StagedPipeline<BatchDocument>(queueSize)
+            .addStage("convert", nbConvert, this::convert)
+            .addStage("segment", nbSegment, this::segment)
+            .addStage("classify", nbClassify, doc -> classifier.enrichDocument(doc.document))
+            .addStage("write", nbWrite, this::write);
+
+        final long start = System.currentTimeMillis();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "dataseer-batch-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> report(documents.size(), start, pipeline.getTimings()),
+            REPORT_INTERVAL, REPORT_INTERVAL, TimeUnit.SECONDS);
+
+        try {
+            pipeline.run(documents.iterator(), new StagedPipeline.Listener<BatchDocument>() {
+                @Override
+                public void completed(BatchDocument doc) {
+                    processed.incrementAndGet();
+                }
+
+                @Override
+                public void failed(BatchDocument doc, String stage, Exception e) {
+                    failed.incrementAndGet();
+                    // release the DOM as soon as possible
+                    doc.document = null;
+                    System.err.println("Processing of " + doc.input.getPath() + " failed at stage " + stage + ": " + e);
+                }
+            });
+        } finally {
+            reporter.shutdownNow();
+        }
+        report(documents.size(), start, pipeline.getTimings());
+    }
+
+    private void convert(BatchDocument doc) throws Exception {
+        switch (doc.type) {
+            case PDF:
+                String tei = classifier.convertPDF(doc.input, profile);
+                if (tei == null)
+                    throw new IllegalStateException("GROBID conversion returned no TEI");
+                doc.document = XMLUtilities.getDocumentBuilder(true).parse(new InputSource(new StringReader(tei)));
+                break;
+            case TEI:
+                doc.document = classifier.parseTEI(doc.input);
+                break;
+            case JATS:
+                doc.document = classifier.convertJATS(doc.input);
+                break;
+        }
+    }
+
+    private void segment(BatchDocument doc) {
+        // TEI coming from GROBID is already segmented into sentences
+        if (doc.type != InputType.PDF)
+            classifier.segmentDocument(doc.document);
+    }
+
+    private void write(BatchDocument doc) throws IOException {
+        String tei = DataseerClassifier.serialize(doc.document, null);
+        doc.document = null;
+        if (tei == null)
+            throw new IOException("Serialization of the enriched TEI failed");
+        File parent = doc.output.getAbsoluteFile().getParentFile();
+        Files.createDirectories(parent.toPath());
+        // write first in a temporary file, so that an interrupted run never leaves a partial output
+        // which would be considered as processed
+        Path tmpPath = Files.createTempFile(parent.toPath(), doc.output.getName(), ".tmp");
+        try {
+            Files.write(tmpPath, tei.getBytes(UTF_8));
+            try {
+                Files.move(tmpPath, doc.output.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch(AtomicMoveNotSupportedException e) {
+                Files.move(tmpPath, doc.output.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmpPath);
+        }
+    }
+
+    private void report(int total, long start, StageTimings timings) {
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        int done = processed.get() + failed.get();
+        System.out.println(String.format("%d/%d documents processed (%d failed, %d skipped) in %.1f s - %.2f documents/s",
+            done, total, failed.get(), skipped, elapsed / 1000.0, processed.get() * 1000.0 / elapsed));
+        System.out.println("\t" + timings.toString());
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    static List<File> listInputs(File inputDirectory) throws IOException {
+        try (Stream<Path> paths = Files.walk(inputDirectory.toPath())) {
+            return paths.filter(Files::isRegularFile)
+                .map(Path::toFile)
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static List<File> readInputList(File listFile) throws IOException {
+        List<File> inputs = new ArrayList<>();
+        for (String line : Files.readAllLines(listFile.toPath(), UTF_8)) {
+            line = line.trim();
+            if (line.length() > 0 && !line.startsWith("#"))
+                inputs.add(new File(line));
+        }
+        return inputs;
+    }
+
+    private static int parseThreads(String value, String option) {
+        try {
+            return Integer.parseInt(value);
+        } catch(NumberFormatException e) {
+            throw new IllegalStateException("Invalid value for " + option + ": " + value);
+        }
+    }
+
+    /**
+     * Command line execution.
+     *
+     * @param args Command line arguments.
+     */
+    public static void main(String[] args) throws Exception {
+        String inputDirectory = null;
+        String inputList = null;
+        String outputDirectory = null;
+        String grobidHome = null;
+        int nbCores = Runtime.getRuntime().availableProcessors();
+        int nbConvert = Math.max(1, nbCores / 2);
+        int nbSegment = Math.max(1, nbCores / 4);
+        int nbClassify = 2;
+        int nbWrite = 1;
+        int queueSize = 16;
+        GrobidProfile profile = null;
+        boolean force = false;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("-force")) {
+                force = true;
+                continue;
+            }
+            if (i + 1 >= args.length)
+                throw new IllegalStateException(USAGE);
+            String value = args[++i];
+            if (value.length() == 0)
+                continue;
+            if (arg.equals("-dIn")) {
+                inputDirectory = value;
+            } else if (arg.equals("-list")) {
+                inputList = value;
+            } else if (arg.equals("-dOut")) {
+                outputDirectory = value;
+            } else if (arg.equals("-gH")) {
+                grobidHome = value;
+            } else if (arg.equals("-nbConvert")) {
+                nbConvert = parseThreads(value, arg);
+            } else if (arg.equals("-nbSegment")) {
+                nbSegment = parseThreads(value, arg);
+            } else if (arg.equals("-nbClassify")) {
+                nbClassify = parseThreads(value, arg);
+            } else if (arg.equals("-nbWrite")) {
+                nbWrite = parseThreads(value, arg);
+            } else if (arg.equals("-queue")) {
+                queueSize = parseThreads(value, arg);
+            } else if (arg.equals("-profile")) {
+                profile = GrobidProfile.fromName(value);
+            } else {
+                throw new IllegalStateException(USAGE);
+            }
+        }
+
+        if ((inputDirectory == null && inputList == null) || outputDirectory == null)
+            throw new IllegalStateException(USAGE);
+
+        initProcess(grobidHome);
+        DataseerMain batch = new DataseerMain(DataseerClassifier.getInstance());
+        batch.setProfile(profile);
+
+        List<BatchDocument> documents;
+        if (inputDirectory != null) {
+            File root = new File(inputDirectory);
+            documents = batch.collect(listInputs(root), root, new File(outputDirectory), force);
+        } else {
+            documents = batch.collect(readInputList(new File(inputList)), null, new File(outputDirectory), force);
+        }
+        System.out.println(documents.size() + " documents to process, " + batch.skipped + " already processed");
+
+        batch.process(documents, nbConvert, nbSegment, nbClassify, nbWrite, queueSize);
+        System.exit(batch.getFailed() > 0 ? 1 : 0);
+    }
+}
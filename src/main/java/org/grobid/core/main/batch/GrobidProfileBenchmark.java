@@ -0,0 +1,160 @@
+package org.grobid.core.main.batch;
+
+import org.grobid.core.engines.DataseerClassifier;
+import org.grobid.core.engines.GrobidProfile;
+
+import java.io.File;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmark of the GROBID conversion profiles on a directory of PDF documents. Each document is
+ * converted with every profile, in alternance so that both profiles see the same machine load,
+ * after a warm-up conversion. The order of the profiles is rotated for each document and 
+ * repetition, so that no profile always runs second on a document, with a warm page cache. The report gives the conversion times per profile, and the number
+ * of sentences and section headers produced, which should be the same for all the profiles as
+ * this is what the Dataseer enrichment uses.
+ */
+public class GrobidProfileBenchmark {
+
+    private static final String USAGE = "Usage: GrobidProfileBenchmark -dIn {directory of PDF documents} "
+            + "[-gH {path to grobid-home}] [-max {max number of documents}] [-repeat {nb conversions per document and profile}]";
+
+    private static final Pattern SENTENCE = Pattern.compile("<s[ >]");
+    private static final Pattern HEAD = Pattern.compile("<head[ >]");
+
+    /**
+     * Results of the conversions with one profile
+     */
+    static class ProfileResult {
+        final GrobidProfile profile;
+        final List<Long> times = new ArrayList<>();
+        long sentences = 0;
+        long heads = 0;
+        int failed = 0;
+
+        ProfileResult(GrobidProfile profile) {
+            this.profile = profile;
+        }
+
+        long percentile(double p) {
+            if (times.isEmpty())
+                return 0;
+            List<Long> sorted = new ArrayList<>(times);
+            Collections.sort(sorted);
+            int index = (int) Math.ceil(p * sorted.size()) - 1;
+            return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+        }
+
+        long total() {
+            long total = 0;
+            for (Long time : times)
+                total += time;
+            return total;
+        }
+
+        double mean() {
+            return times.isEmpty() ? 0.0 : total() / (double) times.size();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-15s %6d conversions (%d failed) - mean %8.1f ms, median %6d ms, p95 %6d ms, total %8.1f s - %d sentences, %d headers",
+                profile.getName(), times.size(), failed, mean(), percentile(0.5), percentile(0.95), total() / 1000.0,
+                sentences, heads);
+        }
+    }
+
+    private static int count(Pattern pattern, String text) {
+        int count = 0;
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find())
+            count++;
+        return count;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String inputDirectory = null;
+        String grobidHome = null;
+        int max = -1;
+        int repeat = 1;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length)
+                throw new IllegalStateException(USAGE);
+            String value = args[++i];
+            if (value.length() == 0)
+                continue;
+            if (arg.equals("-dIn")) {
+                inputDirectory = value;
+            } else if (arg.equals("-gH")) {
+                grobidHome = value;
+            } else if (arg.equals("-max")) {
+                max = Integer.parseInt(value);
+            } else if (arg.equals("-repeat")) {
+                repeat = Integer.parseInt(value);
+            } else {
+                throw new IllegalStateException(USAGE);
+            }
+        }
+        if (inputDirectory == null)
+            throw new IllegalStateException(USAGE);
+
+        List<File> pdfFiles = DataseerMain.listInputs(new File(inputDirectory)).stream()
+            .filter(file -> file.getName().toLowerCase().endsWith(".pdf"))
+            .collect(Collectors.toList());
+        if (max > 0 && pdfFiles.size() > max)
+            pdfFiles = pdfFiles.subList(0, max);
+        if (pdfFiles.isEmpty()) {
+            System.out.println("No PDF document in " + inputDirectory);
+            return;
+        }
+
+        DataseerMain.initProcess(grobidHome);
+        DataseerClassifier classifier = DataseerClassifier.getInstance();
+
+        Map<GrobidProfile, ProfileResult> results = new LinkedHashMap<>();
+        for (GrobidProfile profile : GrobidProfile.values())
+            results.put(profile, new ProfileResult(profile));
+
+        // warm-up, not measured
+        for (GrobidProfile profile : GrobidProfile.values())
+            classifier.convertPDF(pdfFiles.get(0), profile);
+
+        System.out.println("Benchmarking " + pdfFiles.size() + " PDF documents, " + repeat + " conversion(s) per profile");
+        List<GrobidProfile> profiles = new ArrayList<>(Arrays.asList(GrobidProfile.values()));
+        for (File pdfFile : pdfFiles) {
+            for (int r = 0; r < repeat; r++) {
+                // each profile runs first as often as the others
+                Collections.rotate(profiles, 1);
+                for (GrobidProfile profile : profiles) {
+                    ProfileResult result = results.get(profile);
+                    long start = System.nanoTime();
+                    try {
+                        String tei = classifier.convertPDF(pdfFile, profile);
+                        result.times.add((System.nanoTime() - start) / 1000000);
+                        if (r == 0 && tei != null) {
+                            result.sentences += count(SENTENCE, tei);
+                            result.heads += count(HEAD, tei);
+                        }
+                    } catch(Exception e) {
+                        result.failed++;
+                        System.err.println("Conversion of " + pdfFile.getPath() + " with profile " + profile + " failed: " + e);
+                    }
+                }
+            }
+        }
+
+        for (ProfileResult result : results.values())
+            System.out.println(result);
+        double defaultMean = results.get(GrobidProfile.DEFAULT).mean();
+        double leanMean = results.get(GrobidProfile.LEAN).mean();
+        if (leanMean > 0)
+            System.out.println(String.format("speed-up of %s over %s: x%.2f", GrobidProfile.LEAN, GrobidProfile.DEFAULT,
+                defaultMean / leanMean));
+        System.exit(0);
+    }
+}
@@ -0,0 +1,137 @@
+package org.grobid.core.main.batch;
+
+import org.grobid.core.utilities.StageTimings;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pipeline of processing stages, each stage having its own pool of worker threads. Stages are
+ * connected by bounded queues, so that a slow stage slows down the upstream stages instead of
+ * accumulating items in memory.
+ */
+public class StagedPipeline<T> {
+    private static final Logger logger = LoggerFactory.getLogger(StagedPipeline.class);
+
+    // marks the end of the items in a queue
+    private static final Object END = new Object();
+
+    public interface Stage<T> {
+        /**
+         * Process an item, the item is passed to the next stage
+         */
+        void process(T item) throws Exception;
+    }
+
+    public interface Listener<T> {
+        void completed(T item);
+
+        void failed(T item, String stage, Exception e);
+    }
+
+    private final List<String> names = new ArrayList<>();
+    private final List<Integer> threads = new ArrayList<>();
+    private final List<Stage<T>> stages = new ArrayList<>();
+    private final int queueCapacity;
+    private final StageTimings timings = new StageTimings();
+
+    public StagedPipeline(int queueCapacity) {
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    public StagedPipeline<T> addStage(String name, int nbThreads, Stage<T> stage) {
+        names.add(name);
+        threads.add(Math.max(1, nbThreads));
+        stages.add(stage);
+        return this;
+    }
+
+    public StageTimings getTimings() {
+        return timings;
+    }
+
+    /**
+     * Pass all the items through the stages, and return when all of them are processed
+     */
+    public void run(Iterator<T> items, Listener<T> listener) throws InterruptedException {
+        List<BlockingQueue<Object>> queues = new ArrayList<>();
+        for(int i=0; i<=stages.size(); i++)
+            queues.add(new ArrayBlockingQueue<>(queueCapacity));
+
+        List<Thread> workers = new ArrayList<>();
+        for(int i=0; i<stages.size(); i++) {
+            final int stageIndex = i;
+            final AtomicInteger runningWorkers = new AtomicInteger(threads.get(i));
+            for(int j=0; j<threads.get(i); j++) {
+                Thread worker = new Thread(() -> work(stageIndex, queues, runningWorkers, listener),
+                    "dataseer-" + names.get(i) + "-" + j);
+                worker.setDaemon(true);
+                workers.add(worker);
+                worker.start();
+            }
+        }
+
+        // the last queue only signals the end of the pipeline
+        Thread collector = new Thread(() -> {
+            try {
+                BlockingQueue<Object> last = queues.get(stages.size());
+                Object item;
+                while ((item = last.take()) != END)
+                    listener.completed((T) item);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "dataseer-pipeline-end");
+        collector.setDaemon(true);
+        collector.start();
+
+        BlockingQueue<Object> first = queues.get(0);
+        while (items.hasNext())
+            first.put(items.next());
+        first.put(END);
+
+        for(Thread worker : workers)
+            worker.join();
+        collector.join();
+    }
+
+    private void work(int stageIndex, List<BlockingQueue<Object>> queues, AtomicInteger runningWorkers,
+                      Listener<T> listener) {
+        BlockingQueue<Object> in = queues.get(stageIndex);
+        BlockingQueue<Object> out = queues.get(stageIndex + 1);
+        String name = names.get(stageIndex);
+        Stage<T> stage = stages.get(stageIndex);
+        try {
+            while (true) {
+                Object item = in.take();
+                if (item == END) {
+                    // let the other workers of the stage see the end too, the last one closes the stage
+                    in.put(END);
+                    if (runningWorkers.decrementAndGet() == 0)
+                        out.put(END);
+                    return;
+                }
+                long start = System.nanoTime();
+                try {
+                    stage.process((T) item);
+                } catch(Exception e) {
+                    listener.failed((T) item, name, e);
+                    continue;
+                } finally {
+                    timings.record(name, System.nanoTime() - start);
+                }
+                out.put(item);
+            }
+        } catch(InterruptedException e) {
+            logger.warn("Interrupted worker for the stage " + name);
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -12,12 +12,15 @@ import org.apache.http.message.BasicNameValuePair;
 import com.fasterxml.jackson.databind.*;
 
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.io.*;
 import java.util.regex.*;
 import java.net.URL;
 import org.xml.sax.*;
 import org.xml.sax.helpers.*;
 import javax.xml.parsers.*;
+import javax.xml.transform.stream.StreamResult;
 import java.net.URLDecoder;
 
 import org.slf4j.Logger;
@@ -260,53 +263,13 @@ public class ArticleUtilities {
      * Output the path to the transformed outputed file or null if the transformation failed.
      */
     public static String applyPub2TEI(String inputFilePath, String outputFilePath, String pathToPub2TEI) {
-        // we use an external command line for simplification (though it would be more elegant to 
-        // stay in the current VM)
-        // java -jar Samples/saxon9he.jar -s:/mnt/data/resources/plos/0/ -xsl:Stylesheets/Publishers.xsl -o:/mnt/data/resources/plos/0/tei/ -dtd:off -a:off -expand:off -t
-
-        // remove first the DTD declaration from the input nlm/jats XML because all these shitty xml mechanisms break 
-        // the process at one point or another or keep looking for something over the internet 
-        try {
-            String xmlContent = FileUtils.readFileToString(new File(inputFilePath), "UTF-8");
-            xmlContent = xmlContent.replaceAll("<!DOCTYPE((.|\n|\r)*?)\">", ""); 
-            FileUtils.writeStringToFile(new File(inputFilePath), xmlContent, "UTF-8");
-        } catch(IOException e) {
-            logger.error("Fail to preprocess the XML file to be transformed", e);
-        }
-
-        ProcessBuilder processBuilder = new ProcessBuilder(); 
-        String s = "-s:"+inputFilePath;
-        File dirToPub2TEI = new File(pathToPub2TEI);
-
-        String xsl = "-xsl:" + dirToPub2TEI.getAbsolutePath() + "/Stylesheets/Publishers.xsl";
-        String o = "-o:"+outputFilePath;
-        processBuilder.command("java", "-jar", dirToPub2TEI.getAbsolutePath() + "/Samples/saxon9he.jar", s, xsl, o, "-dtd:off", "-a:off", "-expand:off", "-t");
-        //processBuilder.directory(new File(pathToPub2TEI)); 
-        //System.out.println(processBuilder.command().toString());
-        try {
-            Process process = processBuilder.start();
-            StringBuilder output = new StringBuilder();
-            BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream()));
-
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line + "\n");
-            }
-
-            int exitVal = process.waitFor();
-            if (exitVal == 0) {
-                System.out.println("XML transformation done");
-            } else {
-                // abnormal...
-                System.out.println("XML transformation failed");
-                outputFilePath = null;
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-            outputFilePath = null;
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+        // the transformation runs in the current VM with the pre-compiled Pub2TEI stylesheets, the DTD
+        // declaration of the input nlm/jats XML is ignored by the parser and not loaded
+        try (InputStream in = new BufferedInputStream(new FileInputStream(inputFilePath));
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFilePath))) {
+            Pub2TEITransformer.getInstance(pathToPub2TEI).transform(in, new StreamResult(out));
+        } catch (Exception e) {
+            logger.error("XML transformation failed for " + inputFilePath, e);
             outputFilePath = null;
         }
         return outputFilePath;
@@ -319,17 +282,10 @@ public class ArticleUtilities {
         logger.debug(">> set origin document for stateless service'...");
 
         File originFile = null;
-        OutputStream out = null;
         try {
             originFile = IOUtilities.newTempFile("origin", extension);
-
-            out = new FileOutputStream(originFile);
-
-            byte buf[] = new byte[1024];
-            int len;
-            while ((len = inputStream.read(buf)) > 0) {
-                out.write(buf, 0, len);
-            }
+            // NIO copy with a large buffer, rather than small chunks
+            Files.copy(inputStream, originFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
         } catch (IOException e) {
             logger.error(
                     "An internal error occurs, while writing to disk (file to write '"
@@ -337,9 +293,6 @@ public class ArticleUtilities {
             originFile = null;
         } finally {
             try {
-                if (out != null) {
-                    out.close();
-                }
                 inputStream.close();
             } catch (IOException e) {
                 logger.error("An internal error occurs, while writing to disk (file to write '"
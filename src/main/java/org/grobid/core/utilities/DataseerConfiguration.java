@@ -13,6 +13,61 @@ public class DataseerConfiguration {
     public String gluttonHost;
     public String gluttonPort;
 
+    // if true, all the sentences of a document are classified together instead of paragraph per paragraph
+    public boolean documentLevelClassification = false;
+
+    // maximum number of sentences sent to a classifier model in one call
+    public int classificationBatchSize = 200;
+
+    // if true, classifier calls from concurrent requests are merged into common inference batches
+    public boolean classifierBatchScheduling = false;
+    public int classifierMaxBatchSize = 256;
+    public long classifierMaxWaitMillis = 5;
+
+    // cache of sentence classification results, with an optional disk tier if a path is given
+    public boolean classificationCache = false;
+    public long classificationCacheSize = 100000;
+    public long classificationCacheTTLHours = 720;
+    public String classificationCachePath = null;
+    public long classificationCacheDiskMB = 256;
+
+    // if true, the first-level and reuse models are applied in parallel to the positive sentences
+    public boolean parallelCascade = false;
+    public int cascadeThreads = 4;
+
+    // if true, TEI documents are enriched with a streaming StAX pipeline instead of a full DOM
+    public boolean streamingEnrichment = false;
+
+    // if true, the sentences of an already enriched TEI document which are unchanged are not classified again
+    public boolean incrementalEnrichment = false;
+
+    // GROBID conversion profile of the PDF documents: "default" or "dataseer-lean"
+    public String grobidProfile = "default";
+
+    // cache of the results of whole document processing, gzipped, with a memory tier and a disk tier
+    // bounded in size (default path is a document-cache sub-directory of tmpPath)
+    public boolean documentCache = false;
+    public long documentCacheMemoryMB = 64;
+    public long documentCacheDiskMB = 2048;
+    public String documentCachePath = null;
+
+    // asynchronous PDF jobs: worker threads, maximum number of waiting jobs, retention of the
+    // finished jobs and directory of the job store (default is a jobs sub-directory of tmpPath)
+    public int jobThreads = 2;
+    public int jobQueueSize = 1000;
+    public long jobRetentionHours = 24;
+    public String jobPath = null;
+
+    // admission control of the document processing endpoints: maximum number of concurrent
+    // processings per endpoint (0 for no limit), bounded wait queue and wait time before rejection,
+    // and upload size corresponding to one processing slot (0 to ignore the size of the uploads)
+    public int maxConcurrentPDF = 0;
+    public int maxConcurrentTEI = 0;
+    public int maxConcurrentJATS = 0;
+    public int admissionQueueSize = 32;
+    public long admissionMaxWaitMillis = 10000;
+    public long admissionWeightBytes = 0;
+
     //models (sequence labeling and text classifiers)
     public List<ModelParameters> models;
 
@@ -93,5 +148,236 @@ public class DataseerConfiguration {
     public void setGluttonPort(String port) {
         this.gluttonPort = port;
     }
+
+    public boolean getDocumentLevelClassification() {
+        return this.documentLevelClassification;
+    }
+
+    public void setDocumentLevelClassification(boolean documentLevelClassification) {
+        this.documentLevelClassification = documentLevelClassification;
+    }
+
+    public int getClassificationBatchSize() {
+        return this.classificationBatchSize;
+    }
+
+    public void setClassificationBatchSize(int classificationBatchSize) {
+        this.classificationBatchSize = classificationBatchSize;
+    }
+
+    public boolean getClassifierBatchScheduling() {
+        return this.classifierBatchScheduling;
+    }
+
+    public void setClassifierBatchScheduling(boolean classifierBatchScheduling) {
+        this.classifierBatchScheduling = classifierBatchScheduling;
+    }
+
+    public int getClassifierMaxBatchSize() {
+        return this.classifierMaxBatchSize;
+    }
+
+    public void setClassifierMaxBatchSize(int classifierMaxBatchSize) {
+        this.classifierMaxBatchSize = classifierMaxBatchSize;
+    }
+
+    public long getClassifierMaxWaitMillis() {
+        return this.classifierMaxWaitMillis;
+    }
+
+    public void setClassifierMaxWaitMillis(long classifierMaxWaitMillis) {
+        this.classifierMaxWaitMillis = classifierMaxWaitMillis;
+    }
+
+    public boolean getClassificationCache() {
+        return this.classificationCache;
+    }
+
+    public void setClassificationCache(boolean classificationCache) {
+        this.classificationCache = classificationCache;
+    }
+
+    public long getClassificationCacheSize() {
+        return this.classificationCacheSize;
+    }
+
+    public void setClassificationCacheSize(long classificationCacheSize) {
+        this.classificationCacheSize = classificationCacheSize;
+    }
+
+    public long getClassificationCacheTTLHours() {
+        return this.classificationCacheTTLHours;
+    }
+
+    public void setClassificationCacheTTLHours(long classificationCacheTTLHours) {
+        this.classificationCacheTTLHours = classificationCacheTTLHours;
+    }
+
+    public String getClassificationCachePath() {
+        return this.classificationCachePath;
+    }
+
+    public void setClassificationCachePath(String classificationCachePath) {
+        this.classificationCachePath = classificationCachePath;
+    }
+
+    public long getClassificationCacheDiskMB() {
+        return this.classificationCacheDiskMB;
+    }
+
+    public void setClassificationCacheDiskMB(long classificationCacheDiskMB) {
+        this.classificationCacheDiskMB = classificationCacheDiskMB;
+    }
+
+    public boolean getParallelCascade() {
+        return this.parallelCascade;
+    }
+
+    public void setParallelCascade(boolean parallelCascade) {
+        this.parallelCascade = parallelCascade;
+    }
+
+    public int getCascadeThreads() {
+        return this.cascadeThreads;
+    }
+
+    public void setCascadeThreads(int cascadeThreads) {
+        this.cascadeThreads = cascadeThreads;
+    }
+
+    public boolean getStreamingEnrichment() {
+        return this.streamingEnrichment;
+    }
+
+    public void setStreamingEnrichment(boolean streamingEnrichment) {
+        this.streamingEnrichment = streamingEnrichment;
+    }
+
+    public boolean getIncrementalEnrichment() {
+        return this.incrementalEnrichment;
+    }
+
+    public void setIncrementalEnrichment(boolean incrementalEnrichment) {
+        this.incrementalEnrichment = incrementalEnrichment;
+    }
+
+    public String getGrobidProfile() {
+        return this.grobidProfile;
+    }
+
+    public void setGrobidProfile(String grobidProfile) {
+        this.grobidProfile = grobidProfile;
+    }
+
+    public boolean getDocumentCache() {
+        return this.documentCache;
+    }
+
+    public void setDocumentCache(boolean documentCache) {
+        this.documentCache = documentCache;
+    }
+
+    public long getDocumentCacheMemoryMB() {
+        return this.documentCacheMemoryMB;
+    }
+
+    public void setDocumentCacheMemoryMB(long documentCacheMemoryMB) {
+        this.documentCacheMemoryMB = documentCacheMemoryMB;
+    }
+
+    public long getDocumentCacheDiskMB() {
+        return this.documentCacheDiskMB;
+    }
+
+    public void setDocumentCacheDiskMB(long documentCacheDiskMB) {
+        this.documentCacheDiskMB = documentCacheDiskMB;
+    }
+
+    public String getDocumentCachePath() {
+        return this.documentCachePath;
+    }
+
+    public void setDocumentCachePath(String documentCachePath) {
+        this.documentCachePath = documentCachePath;
+    }
+
+    public int getJobThreads() {
+        return this.jobThreads;
+    }
+
+    public void setJobThreads(int jobThreads) {
+        this.jobThreads = jobThreads;
+    }
+
+    public int getJobQueueSize() {
+        return this.jobQueueSize;
+    }
+
+    public void setJobQueueSize(int jobQueueSize) {
+        this.jobQueueSize = jobQueueSize;
+    }
+
+    public long getJobRetentionHours() {
+        return this.jobRetentionHours;
+    }
+
+    public void setJobRetentionHours(long jobRetentionHours) {
+        this.jobRetentionHours = jobRetentionHours;
+    }
+
+    public String getJobPath() {
+        return this.jobPath;
+    }
+
+    public void setJobPath(String jobPath) {
+        this.jobPath = jobPath;
+    }
+
+    public int getMaxConcurrentPDF() {
+        return this.maxConcurrentPDF;
+    }
+
+    public void setMaxConcurrentPDF(int maxConcurrentPDF) {
+        this.maxConcurrentPDF = maxConcurrentPDF;
+    }
+
+    public int getMaxConcurrentTEI() {
+        return this.maxConcurrentTEI;
+    }
+
+    public void setMaxConcurrentTEI(int maxConcurrentTEI) {
+        this.maxConcurrentTEI = maxConcurrentTEI;
+    }
+
+    public int getMaxConcurrentJATS() {
+        return this.maxConcurrentJATS;
+    }
+
+    public void setMaxConcurrentJATS(int maxConcurrentJATS) {
+        this.maxConcurrentJATS = maxConcurrentJATS;
+    }
+
+    public int getAdmissionQueueSize() {
+        return this.admissionQueueSize;
+    }
+
+    public void setAdmissionQueueSize(int admissionQueueSize) {
+        this.admissionQueueSize = admissionQueueSize;
+    }
+
+    public long getAdmissionMaxWaitMillis() {
+        return this.admissionMaxWaitMillis;
+    }
+
+    public void setAdmissionMaxWaitMillis(long admissionMaxWaitMillis) {
+        this.admissionMaxWaitMillis = admissionMaxWaitMillis;
+    }
+
+    public long getAdmissionWeightBytes() {
+        return this.admissionWeightBytes;
+    }
+
+    public void setAdmissionWeightBytes(long admissionWeightBytes) {
+        this.admissionWeightBytes = admissionWeightBytes;
+    }
 }
- 
\ No newline at end of file
@@ -0,0 +1,81 @@
+package org.grobid.core.utilities;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+/**
+ * Metrics of the processing pipeline (conversion, segmentation, classification stages,
+ * serialization, etc.). When running as a service, the metric registry is the one of the
+ * service, so that the metrics are exposed on the admin connector. Otherwise a local registry
+ * is used.
+ *
+ * Metric names are prefixed by "dataseer.".
+ */
+public class DataseerMetrics {
+
+    public static final String PREFIX = "dataseer";
+
+    // stage timers
+    public static final String GROBID_CONVERSION = "grobid.conversion";
+    public static final String PUB2TEI_TRANSFORMATION = "pub2tei.transformation";
+    public static final String SEGMENTATION = "segmentation";
+    public static final String CLASSIFICATION = "classification";
+    public static final String SECTION_LABELLING = "section.labelling";
+    public static final String SERIALIZATION = "serialization";
+    public static final String SENTENCE_REQUEST = "service.sentence";
+
+    // counters and histograms
+    public static final String SENTENCES_CLASSIFIED = "sentences.classified";
+    public static final String SENTENCES_POSITIVE = "sentences.positive";
+    public static final String DOCUMENT_SENTENCES = "document.sentences";
+    public static final String DOCUMENT_DATASETS = "document.datasets";
+
+    // gauges of the sentence classification cache
+    public static final String SENTENCE_CACHE = "sentence.cache";
+
+    private static volatile MetricRegistry registry = new MetricRegistry();
+
+    /**
+     * Use the given registry for all the metrics, to be called at initialisation before any
+     * processing
+     */
+    public static void setRegistry(MetricRegistry metricRegistry) {
+        registry = metricRegistry;
+    }
+
+    public static MetricRegistry getRegistry() {
+        return registry;
+    }
+
+    public static Timer timer(String name) {
+        return registry.timer(MetricRegistry.name(PREFIX, name));
+    }
+
+    /**
+     * Timer of a classification stage (binary, first-level, reuse)
+     */
+    public static Timer classificationTimer(String stage) {
+        return registry.timer(MetricRegistry.name(PREFIX, CLASSIFICATION, stage));
+    }
+
+    public static Counter counter(String name) {
+        return registry.counter(MetricRegistry.name(PREFIX, name));
+    }
+
+    public static Histogram histogram(String name) {
+        return registry.histogram(MetricRegistry.name(PREFIX, name));
+    }
+
+    /**
+     * Register a gauge, replacing the gauge previously registered under the same name if any 
+     * (e.g. for a re-created cache)
+     */
+    public static <T> void gauge(String name, Gauge<T> gauge) {
+        String fullName = MetricRegistry.name(PREFIX, name);
+        registry.remove(fullName);
+        registry.register(fullName, gauge);
+    }
+}
@@ -0,0 +1,142 @@
+package org.grobid.core.utilities;
+
+import com.codahale.metrics.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.Result;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamSource;
+
+import java.io.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Transformation of publisher XML formats (JATS/NLM, etc.) into TEI with the Pub2TEI stylesheets
+ * (https://github.com/kermitt2/Pub2TEI), run in the current JVM with Saxon-HE.
+ *
+ * The main stylesheet is compiled once into a thread-safe Templates object, each transformation
+ * only creates a light Transformer. There is one instance per Pub2TEI installation path, so that
+ * the stylesheets are always the ones of the requested path. External DTD and entities of the input documents are ignored,
+ * so that the transformation never tries to load them from the internet.
+ */
+public class Pub2TEITransformer {
+    private static final Logger logger = LoggerFactory.getLogger(Pub2TEITransformer.class);
+
+    // instances by canonical path of the Pub2TEI installation
+    private static final ConcurrentMap<String, Pub2TEITransformer> instances = new ConcurrentHashMap<>();
+
+    private static final SAXParserFactory saxParserFactory = createSAXParserFactory();
+
+    private final Templates templates;
+
+    /**
+     * @return the transformer of the Pub2TEI installation at the given path, its stylesheets are 
+     * compiled at the first call for this path
+     */
+    public static Pub2TEITransformer getInstance(String pathToPub2TEI) {
+        String key = canonicalPath(pathToPub2TEI);
+        Pub2TEITransformer instance = instances.get(key);
+        if (instance == null) {
+            getNewInstance(key);
+            instance = instances.get(key);
+        }
+        return instance;
+    }
+
+    /**
+     * Create a new instance.
+     */
+    private static synchronized void getNewInstance(String pathToPub2TEI) {
+        if (!instances.containsKey(pathToPub2TEI)) {
+            if (!instances.isEmpty())
+                logger.info("Loading the Pub2TEI stylesheets of a second installation: " + pathToPub2TEI);
+            instances.put(pathToPub2TEI, new Pub2TEITransformer(pathToPub2TEI));
+        }
+    }
+
+    private static String canonicalPath(String path) {
+        File file = new File(path);
+        try {
+            return file.getCanonicalPath();
+        } catch(IOException e) {
+            return file.getAbsolutePath();
+        }
+    }
+
+    private Pub2TEITransformer(String pathToPub2TEI) {
+        File stylesheet = new File(new File(pathToPub2TEI), "Stylesheets" + File.separator + "Publishers.xsl");
+        if (!stylesheet.exists()) {
+            throw new IllegalStateException("Pub2TEI stylesheet not found: " + stylesheet.getAbsolutePath());
+        }
+        // Pub2TEI stylesheets are XSLT 2.0, so we use explicitly Saxon and not the JAXP default
+        TransformerFactory factory = new net.sf.saxon.TransformerFactoryImpl();
+        // equivalent of the command line option -expand:off
+        factory.setAttribute("http://saxon.sf.net/feature/expandAttributeDefaults", Boolean.FALSE);
+        long start = System.currentTimeMillis();
+        try {
+            this.templates = factory.newTemplates(new StreamSource(stylesheet));
+        } catch(TransformerException e) {
+            throw new IllegalStateException("Cannot compile the Pub2TEI stylesheet " + stylesheet.getAbsolutePath(), e);
+        }
+        logger.info("Pub2TEI stylesheets compiled in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private static SAXParserFactory createSAXParserFactory() {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setValidating(false);
+        try {
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        } catch(Exception e) {
+            logger.debug("The SAX parser does not support disabling external DTD loading", e);
+        }
+        return factory;
+    }
+
+    /**
+     * Transform a publisher XML document read from a stream into TEI
+     */
+    public void transform(InputStream inputStream, Result result) throws IOException, TransformerException {
+        Transformer transformer = templates.newTransformer();
+        try (Timer.Context context = DataseerMetrics.timer(DataseerMetrics.PUB2TEI_TRANSFORMATION).time()) {
+            transformer.transform(createSource(new InputSource(inputStream)), result);
+        }
+    }
+
+    /**
+     * Transform a publisher XML document read from a stream into a TEI DOM
+     */
+    public org.w3c.dom.Document transformToDocument(InputStream inputStream) throws IOException, TransformerException {
+        org.w3c.dom.Document document = XMLUtilities.getDocumentBuilder(true).newDocument();
+        transform(inputStream, new DOMResult(document));
+        return document;
+    }
+
+    private static SAXSource createSource(InputSource inputSource) throws TransformerException {
+        XMLReader reader;
+        try {
+            synchronized(saxParserFactory) {
+                reader = saxParserFactory.newSAXParser().getXMLReader();
+            }
+        } catch(ParserConfigurationException | SAXException e) {
+            throw new TransformerException("Cannot create a SAX parser", e);
+        }
+        // any external DTD or entity is replaced by an empty content
+        reader.setEntityResolver((publicId, systemId) -> new InputSource(new StringReader("")));
+        return new SAXSource(reader, inputSource);
+    }
+}
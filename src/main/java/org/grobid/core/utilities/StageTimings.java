@@ -0,0 +1,53 @@
+package org.grobid.core.utilities;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cumulated execution times of named processing stages, safe for concurrent updates.
+ */
+public class StageTimings {
+
+    private final ConcurrentMap<String, LongAdder> counts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> totalNanos = new ConcurrentHashMap<>();
+
+    public void record(String stage, long nanos) {
+        counts.computeIfAbsent(stage, s -> new LongAdder()).increment();
+        totalNanos.computeIfAbsent(stage, s -> new LongAdder()).add(nanos);
+    }
+
+    public Set<String> getStages() {
+        return new TreeSet<>(counts.keySet());
+    }
+
+    public long getCount(String stage) {
+        LongAdder count = counts.get(stage);
+        return (count == null) ? 0 : count.sum();
+    }
+
+    public long getTotalMillis(String stage) {
+        LongAdder total = totalNanos.get(stage);
+        return (total == null) ? 0 : TimeUnit.NANOSECONDS.toMillis(total.sum());
+    }
+
+    public double getMeanMillis(String stage) {
+        long count = getCount(stage);
+        return (count == 0) ? 0.0 : ((double) getTotalMillis(stage)) / count;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for(String stage : getStages()) {
+            if (builder.length() > 0)
+                builder.append(", ");
+            builder.append(stage).append(": ").append(getCount(stage)).append(" call(s), ")
+                .append(getTotalMillis(stage)).append(" ms");
+        }
+        return builder.toString();
+    }
+}
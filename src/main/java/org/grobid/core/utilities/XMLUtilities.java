@@ -19,16 +19,83 @@ import org.grobid.core.document.xml.XmlBuilderUtils;
  */
 public class XMLUtilities {
 
+    // factory lookups go through service loading, so factories are created once, and parsers and 
+    // transformers (which are not thread-safe) are kept per thread and reset before each use
+    private static final DocumentBuilderFactory documentBuilderFactory = createDocumentBuilderFactory(false);
+    private static final DocumentBuilderFactory namespaceAwareDocumentBuilderFactory = createDocumentBuilderFactory(true);
+    private static final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+    private static final XPathFactory xPathFactory = XPathFactory.newInstance();
+
+    private static final ThreadLocal<DocumentBuilder> documentBuilder = 
+        ThreadLocal.withInitial(() -> newDocumentBuilder(documentBuilderFactory));
+    private static final ThreadLocal<DocumentBuilder> namespaceAwareDocumentBuilder = 
+        ThreadLocal.withInitial(() -> newDocumentBuilder(namespaceAwareDocumentBuilderFactory));
+    private static final ThreadLocal<Transformer> transformer = 
+        ThreadLocal.withInitial(() -> newTransformer());
+    private static final ThreadLocal<XPath> xPath = 
+        ThreadLocal.withInitial(() -> newXPath());
+
+    private static DocumentBuilderFactory createDocumentBuilderFactory(boolean namespaceAware) {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(namespaceAware);
+        return factory;
+    }
+
+    private static DocumentBuilder newDocumentBuilder(DocumentBuilderFactory factory) {
+        // factories are not guaranteed to be thread-safe
+        synchronized(factory) {
+            try {
+                return factory.newDocumentBuilder();
+            } catch(ParserConfigurationException e) {
+                throw new RuntimeException("Cannot create a DOM parser", e);
+            }
+        }
+    }
+
+    private static Transformer newTransformer() {
+        synchronized(transformerFactory) {
+            try {
+                return transformerFactory.newTransformer();
+            } catch(TransformerConfigurationException e) {
+                throw new RuntimeException("Cannot create an XML transformer", e);
+            }
+        }
+    }
+
+    private static XPath newXPath() {
+        synchronized(xPathFactory) {
+            return xPathFactory.newXPath();
+        }
+    }
+
+    /**
+     * @return a DOM parser owned by the current thread, to be used for one parse at a time
+     */
+    public static DocumentBuilder getDocumentBuilder(boolean namespaceAware) {
+        DocumentBuilder builder = namespaceAware ? namespaceAwareDocumentBuilder.get() : documentBuilder.get();
+        builder.reset();
+        return builder;
+    }
+
+    /**
+     * @return an identity transformer owned by the current thread, with default output properties
+     */
+    public static Transformer getTransformer() {
+        Transformer theTransformer = transformer.get();
+        theTransformer.reset();
+        return theTransformer;
+    }
+
     public static String toPrettyString(String xml, int indent) {
         try {
             // Turn xml string into a document
-            org.w3c.dom.Document document = DocumentBuilderFactory.newInstance()
-                    .newDocumentBuilder()
+            org.w3c.dom.Document document = getDocumentBuilder(false)
                     .parse(new InputSource(new ByteArrayInputStream(xml.getBytes("utf-8"))));
 
             // Remove whitespaces outside tags
             document.normalize();
-            XPath xPath = XPathFactory.newInstance().newXPath();
+            XPath xPath = XMLUtilities.xPath.get();
+            xPath.reset();
             org.w3c.dom.NodeList nodeList = (org.w3c.dom.NodeList) xPath.evaluate("//text()[normalize-space()='']",
                                                           document,
                                                           XPathConstants.NODESET);
@@ -39,8 +106,7 @@ public class XMLUtilities {
             }
 
             // Setup pretty print options
-            TransformerFactory transformerFactory = TransformerFactory.newInstance();
-            Transformer transformer = transformerFactory.newTransformer();
+            Transformer transformer = getTransformer();
             transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
             transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
             transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
@@ -9,6 +9,7 @@ import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
 import org.eclipse.jetty.servlets.CrossOriginFilter;
 import org.grobid.service.configuration.DataseerServiceConfiguration;
+import org.grobid.service.controller.DocumentCacheTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -61,5 +62,9 @@ public class DataseerApplication extends Application<DataseerServiceConfiguratio
         cors.addMappingForUrlPatterns(EnumSet.allOf(DispatcherType.class), true, "/*");
 
         environment.jersey().setUrlPattern(RESOURCES + "/*");
+
+        // administration of the document cache
+        environment.admin().addTask(new DocumentCacheTask(DocumentCacheTask.Action.STATS));
+        environment.admin().addTask(new DocumentCacheTask(DocumentCacheTask.Action.PURGE));
     }
 }
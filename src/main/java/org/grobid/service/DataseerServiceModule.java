@@ -10,6 +10,7 @@ import org.grobid.service.controller.DataseerController;
 import org.grobid.service.controller.HealthCheck;
 import org.grobid.service.controller.DataseerProcessFile;
 import org.grobid.service.controller.DataseerProcessString;
+import org.grobid.service.controller.DataseerJobService;
 
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
@@ -26,6 +27,7 @@ public class DataseerServiceModule extends DropwizardAwareModule<DataseerService
         // Core components
         binder.bind(DataseerProcessFile.class);
         binder.bind(DataseerProcessString.class);
+        binder.bind(DataseerJobService.class);
 
         // REST
         binder.bind(DataseerController.class);
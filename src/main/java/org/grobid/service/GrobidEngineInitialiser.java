@@ -1,5 +1,6 @@
 package org.grobid.service;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableList;
 import org.grobid.core.main.GrobidHomeFinder;
 import org.grobid.core.main.LibraryLoader;
@@ -8,6 +9,7 @@ import org.grobid.core.engines.tagging.GrobidCRFEngine;
 import org.grobid.core.lexicon.DataseerLexicon;
 import org.grobid.service.configuration.DataseerServiceConfiguration;
 import org.grobid.core.utilities.DataseerConfiguration;
+import org.grobid.core.utilities.DataseerMetrics;
 import org.grobid.core.utilities.GrobidConfig.ModelParameters;
 
 import java.io.*;
@@ -26,7 +28,10 @@ public class GrobidEngineInitialiser {
     private static final Logger LOGGER = LoggerFactory.getLogger(org.grobid.service.GrobidEngineInitialiser.class);
 
     @Inject
-    public GrobidEngineInitialiser(DataseerServiceConfiguration configuration) {
+    public GrobidEngineInitialiser(DataseerServiceConfiguration configuration, MetricRegistry metricRegistry) {
+        // processing metrics are exposed with the service metrics
+        DataseerMetrics.setRegistry(metricRegistry);
+
         LOGGER.info("Initialising Grobid");
         GrobidHomeFinder grobidHomeFinder = new GrobidHomeFinder(ImmutableList.of(configuration.getGrobidHome()));
         GrobidProperties.getInstance(grobidHomeFinder);
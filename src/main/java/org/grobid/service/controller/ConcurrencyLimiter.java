@@ -0,0 +1,158 @@
+package org.grobid.service.controller;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for a heavy endpoint. At most a given number of permits are in use at the
+ * same time, a request takes one permit or more depending on the size of its upload. Requests
+ * which cannot get their permits wait in a bounded queue for a limited time, beyond that they
+ * are rejected immediately with a 503 and a Retry-After header, so that the service sheds load
+ * instead of running out of memory.
+ */
+public class ConcurrencyLimiter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrencyLimiter.class);
+
+    private final String name;
+    private final int permits;
+    private final int maxWaiting;
+    private final long maxWaitMillis;
+    private final long weightBytes;
+
+    private final Semaphore semaphore;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Timer processingTimer;
+    private final Counter rejected;
+
+    /**
+     * @param permits maximum number of permits in use at the same time, 0 for no limit
+     * @param maxWaiting maximum number of requests waiting for permits
+     * @param maxWaitMillis maximum time a request waits for its permits
+     * @param weightBytes upload size corresponding to one permit, 0 if every request takes one permit
+     */
+    public ConcurrencyLimiter(String name, int permits, int maxWaiting, long maxWaitMillis, long weightBytes,
+                              MetricRegistry metricRegistry) {
+        this.name = name;
+        this.permits = permits;
+        this.maxWaiting = Math.max(0, maxWaiting);
+        this.maxWaitMillis = Math.max(0, maxWaitMillis);
+        this.weightBytes = weightBytes;
+        this.semaphore = (permits > 0) ? new Semaphore(permits, true) : null;
+
+        metricRegistry.register(MetricRegistry.name(ConcurrencyLimiter.class, name, "inFlight"),
+            (Gauge<Integer>) inFlight::get);
+        metricRegistry.register(MetricRegistry.name(ConcurrencyLimiter.class, name, "waiting"),
+            (Gauge<Integer>) waiting::get);
+        metricRegistry.register(MetricRegistry.name(ConcurrencyLimiter.class, name, "permitsInUse"),
+            (Gauge<Integer>) () -> (semaphore == null) ? 0 : permits - semaphore.availablePermits());
+        this.processingTimer = metricRegistry.timer(MetricRegistry.name(ConcurrencyLimiter.class, name, "processing"));
+        this.rejected = metricRegistry.counter(MetricRegistry.name(ConcurrencyLimiter.class, name, "rejected"));
+    }
+
+    /**
+     * Number of permits taken by a request with the given upload size (-1 if unknown)
+     */
+    int weight(long contentLength) {
+        if (weightBytes <= 0 || contentLength <= 0)
+            return 1;
+        long weight = 1 + contentLength / weightBytes;
+        // a request bigger than the limit would never be admitted
+        return (int) Math.min(weight, permits);
+    }
+
+    /**
+     * Run the request processing if it is admitted, otherwise return a 503 response. If the
+     * response entity is streamed, the permits are kept until the entity is written.
+     */
+    public Response process(long contentLength, Supplier<Response> processing) {
+        if (semaphore == null)
+            return processing.get();
+
+        int weight = weight(contentLength);
+        if (!acquire(weight)) {
+            rejected.inc();
+            LOGGER.warn("Too many concurrent requests for " + name + ", request rejected");
+            return Response.status(Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, getRetryAfterSeconds())
+                .build();
+        }
+
+        boolean released = false;
+        inFlight.incrementAndGet();
+        final Timer.Context context = processingTimer.time();
+        try {
+            Response response = processing.get();
+            if (response != null && response.getEntity() instanceof StreamingOutput) {
+                final StreamingOutput output = (StreamingOutput) response.getEntity();
+                StreamingOutput limitedOutput = out -> {
+                    try {
+                        output.write(out);
+                    } finally {
+                        release(weight, context);
+                    }
+                };
+                released = true;
+                return Response.fromResponse(response).entity(limitedOutput).build();
+            }
+            return response;
+        } finally {
+            if (!released)
+                release(weight, context);
+        }
+    }
+
+    private boolean acquire(int weight) {
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            // no waiting place, the request is admitted only if permits are free right now
+            return tryAcquire(weight, 0);
+        }
+        try {
+            return tryAcquire(weight, maxWaitMillis);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private boolean tryAcquire(int weight, long timeoutMillis) {
+        try {
+            // with a timeout, even 0, the fairness of the semaphore is respected
+            return semaphore.tryAcquire(weight, timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void release(int weight, Timer.Context context) {
+        context.stop();
+        inFlight.decrementAndGet();
+        semaphore.release(weight);
+    }
+
+    /**
+     * Estimated time in seconds before the requests currently admitted or waiting are processed
+     */
+    long getRetryAfterSeconds() {
+        double meanSeconds = processingTimer.getSnapshot().getMean() / TimeUnit.SECONDS.toNanos(1);
+        double pending = (inFlight.get() + waiting.get()) / (double) permits;
+        return Math.max(1, (long) Math.ceil(meanSeconds * pending));
+    }
+}
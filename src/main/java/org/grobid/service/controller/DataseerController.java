@@ -7,13 +7,19 @@ import org.grobid.core.main.LibraryLoader;
 import org.grobid.core.utilities.DataseerConfiguration;
 import org.grobid.core.utilities.GrobidProperties;
 import org.grobid.core.utilities.GrobidConfig.ModelParameters;
+import com.codahale.metrics.MetricRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import java.io.InputStream;
 import java.io.File;
@@ -39,12 +45,23 @@ public class DataseerController implements DataseerPaths {
     private static final String XML = "xml";
     private static final String TEI = "tei";
     private static final String PDF = "pdf";
+    private static final String JATS = "jats";
     private static final String INPUT = "input";
+    private static final String WAIT = "wait";
+    private static final String PROFILE = "profile";
 
     private DataseerConfiguration configuration;
 
+    private DataseerJobService jobService;
+
+    // admission control of the document processing endpoints
+    private ConcurrencyLimiter pdfLimiter;
+    private ConcurrencyLimiter teiLimiter;
+    private ConcurrencyLimiter jatsLimiter;
+
     @Inject
-    public DataseerController(DataseerServiceConfiguration serviceConfiguration) {
+    public DataseerController(DataseerServiceConfiguration serviceConfiguration, DataseerJobService jobService, 
+                              MetricRegistry metricRegistry) {
         /*try {
             ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
             this.configuration = mapper.readValue(new File("resources/config/config.yml"), DataseerConfiguration.class);
@@ -53,6 +70,16 @@ public class DataseerController implements DataseerPaths {
             this.configuration = null;
         }*/
         this.configuration = serviceConfiguration.getDataseerConfiguration();
+        this.jobService = jobService;
+
+        this.pdfLimiter = createLimiter(PDF, configuration.getMaxConcurrentPDF(), metricRegistry);
+        this.teiLimiter = createLimiter(TEI, configuration.getMaxConcurrentTEI(), metricRegistry);
+        this.jatsLimiter = createLimiter(JATS, configuration.getMaxConcurrentJATS(), metricRegistry);
+    }
+
+    private ConcurrencyLimiter createLimiter(String name, int maxConcurrent, MetricRegistry metricRegistry) {
+        return new ConcurrencyLimiter(name, maxConcurrent, configuration.getAdmissionQueueSize(), 
+            configuration.getAdmissionMaxWaitMillis(), configuration.getAdmissionWeightBytes(), metricRegistry);
     }
 
 
@@ -98,7 +125,7 @@ public class DataseerController implements DataseerPaths {
     @Produces(MediaType.APPLICATION_JSON + ";charset=utf-8")
     @POST
     public Response processText_post(@FormParam(TEXT) String text) {
-        LOGGER.info(text);
+        LOGGER.debug(text);
         return DataseerProcessString.processSentence(text);
     }
 
@@ -106,53 +133,87 @@ public class DataseerController implements DataseerPaths {
     @Produces(MediaType.APPLICATION_JSON + ";charset=utf-8")
     @GET
     public Response processText_get(@QueryParam(TEXT) String text) {
-        LOGGER.info(text);
+        LOGGER.debug(text);
         return DataseerProcessString.processSentence(text);
     }
+
+    @Path(PATH_DATASEER_SENTENCES)
+    @Consumes({MediaType.APPLICATION_JSON, DataseerProcessString.APPLICATION_NDJSON, MediaType.TEXT_PLAIN})
+    @Produces(DataseerProcessString.APPLICATION_NDJSON + ";charset=utf-8")
+    @POST
+    public Response processSentences(InputStream inputStream) {
+        return DataseerProcessString.processSentences(inputStream);
+    }
     
     @Path(PATH_DATASEER_PDF)
     @Consumes(MediaType.MULTIPART_FORM_DATA)
     @Produces(MediaType.APPLICATION_XML)
     @POST
-    public Response processPDF(@FormDataParam(INPUT) InputStream inputStream) {
-        return DataseerProcessFile.processPDF(inputStream);
+    public Response processPDF(@FormDataParam(INPUT) InputStream inputStream, @FormDataParam(PROFILE) String profile,
+                               @Context HttpHeaders headers) {
+        return pdfLimiter.process(headers.getLength(), () -> DataseerProcessFile.processPDF(inputStream, profile));
     }
 
     @Path(PATH_DATASEER_TEI)
     @Consumes(MediaType.MULTIPART_FORM_DATA)
     @Produces(MediaType.APPLICATION_XML)
     @POST
-    public Response processTEI(@FormDataParam(INPUT) InputStream inputStream) {
-        return DataseerProcessFile.processTEI(inputStream);
+    public Response processTEI(@FormDataParam(INPUT) InputStream inputStream, @Context HttpHeaders headers) {
+        return teiLimiter.process(headers.getLength(), () -> DataseerProcessFile.processTEI(inputStream));
     }
 
     @Path(PATH_DATASEER_JATS)
     @Consumes(MediaType.MULTIPART_FORM_DATA)
     @Produces(MediaType.APPLICATION_XML)
     @POST
-    public Response processJATS(@FormDataParam(INPUT) InputStream inputStream) {
-        return DataseerProcessFile.processJATS(inputStream);
+    public Response processJATS(@FormDataParam(INPUT) InputStream inputStream, @Context HttpHeaders headers) {
+        return jatsLimiter.process(headers.getLength(), () -> DataseerProcessFile.processJATS(inputStream));
+    }
+
+    @Path(PATH_DATASEER_PDF_JOB)
+    @Consumes(MediaType.MULTIPART_FORM_DATA)
+    @Produces(MediaType.APPLICATION_JSON + ";charset=utf-8")
+    @POST
+    public Response submitPDFJob(@FormDataParam(INPUT) InputStream inputStream, 
+                                 @FormDataParam(PROFILE) String profile) {
+        return DataseerProcessJob.submitPDF(jobService, inputStream, profile);
+    }
+
+    @Path(PATH_JOB)
+    @Produces(MediaType.APPLICATION_JSON + ";charset=utf-8")
+    @GET
+    public void getJobStatus(@PathParam("id") String id, @DefaultValue("0") @QueryParam(WAIT) int wait,
+                             @Suspended AsyncResponse asyncResponse) {
+        DataseerProcessJob.getStatus(jobService, id, wait, asyncResponse);
+    }
+
+    @Path(PATH_JOB_RESULT)
+    @Produces(MediaType.APPLICATION_XML)
+    @GET
+    public Response getJobResult(@PathParam("id") String id) {
+        return DataseerProcessJob.getResult(jobService, id);
     }
 
     @Path(PATH_ANNOTATE_DATASEER_PDF)
     @Consumes(MediaType.MULTIPART_FORM_DATA)
     @Produces(MediaType.APPLICATION_JSON + ";charset=utf-8")
     @POST
-    public Response processPDFAnnotation(@FormDataParam(INPUT) InputStream inputStream) {
-        return DataseerProcessFile.processPDFAnnotation(inputStream);
+    public Response processPDFAnnotation(@FormDataParam(INPUT) InputStream inputStream, @FormDataParam(PROFILE) String profile,
+                                         @Context HttpHeaders headers) {
+        return pdfLimiter.process(headers.getLength(), () -> DataseerProcessFile.processPDFAnnotation(inputStream, profile));
     }
 
     @Path(PATH_DATATYPE_JSON)
     @Produces(MediaType.APPLICATION_JSON + ";charset=utf-8")
     @GET
-    public Response getJsonDataTypes() {
-        return DataseerDataTypeService.getInstance().getJsonDataTypes();
+    public Response getJsonDataTypes(@Context Request request, @Context HttpHeaders headers) {
+        return DataseerDataTypeService.getInstance().getJsonDataTypes(request, headers);
     }
 
     @Path(PATH_RESYNC_DATATYPE_JSON)
     @Produces(MediaType.APPLICATION_JSON + ";charset=utf-8")
     @GET
-    public Response getResyncJsonDataTypes() {
-        return DataseerDataTypeService.getInstance().getResyncJsonDataTypes();
+    public Response getResyncJsonDataTypes(@Context Request request, @Context HttpHeaders headers) {
+        return DataseerDataTypeService.getInstance().getResyncJsonDataTypes(request, headers);
     }
 }
@@ -1,27 +1,44 @@
 package org.grobid.service.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.io.FileUtils;
 import org.grobid.core.engines.DataseerClassifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import java.util.Date;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.io.*;
 import java.lang.*;
+import java.security.MessageDigest;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 /**
- * 
+ * Serving of the json datatype resource. The resource is kept in memory as an immutable snapshot
+ * with its gzipped version and its ETag, so that it is served without any processing, and
+ * clients having already the current version get a 304.
+ *
+ * The re-sync with the DataSeer Wiki runs in the background, with at most one sync at the same
+ * time shared by all the callers, and the new snapshot replaces atomically the previous one.
+ *
  * @author Patrice
- * 
+ *
  */
 public class DataseerDataTypeService {
 
@@ -29,9 +46,46 @@ public class DataseerDataTypeService {
 
     private static volatile DataseerDataTypeService instance;
 
-    // we keep the datatype json in memory and instance-based for the application 
+    // seconds a client should wait when the resource is not available yet
+    private static final int RETRY_AFTER = 30;
+
+    // seconds a re-sync request waits for the sync, the current resource is served after that
+    private static final int RESYNC_TIMEOUT = 300;
+
+    /**
+     * An immutable version of the json datatype resource, ready to be served
+     */
+    private static final class Snapshot {
+        final byte[] json;
+        final byte[] gzippedJson;
+        final EntityTag etag;
+        final Date lastModified;
+
+        Snapshot(String jsonString) throws IOException {
+            this.json = jsonString.getBytes(StandardCharsets.UTF_8);
+            ByteArrayOutputStream gzipped = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+                gzip.write(json);
+            }
+            this.gzippedJson = gzipped.toByteArray();
+            this.etag = new EntityTag(digest(json));
+            // HTTP dates have a precision of one second
+            this.lastModified = new Date((System.currentTimeMillis() / 1000) * 1000);
+        }
+    }
+
+    // we keep the datatype json in memory and instance-based for the application
     // for faster serving the resource
-    private String jsonDataTypeResource = null;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    // the sync in progress, if any
+    private final AtomicReference<CompletableFuture<Snapshot>> resync = new AtomicReference<>();
+
+    private final ExecutorService resyncExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "dataseer-datatype-resync");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private String defaultPath = null;
 
@@ -46,124 +100,189 @@ public class DataseerDataTypeService {
      * Create a new instance.
      */
     private static synchronized void getNewInstance() {
-        instance = new DataseerDataTypeService();
+        if (instance == null)
+            instance = new DataseerDataTypeService();
     }
 
     private DataseerDataTypeService() {
+        // get default current path
+        this.defaultPath = Paths.get(".").toAbsolutePath().normalize().toString();
+
         File jsonFile = new File("resources/DataTypes.json");
-        if (!jsonFile.exists())
-            jsonDataTypeResource = null;
-        else {
-            try {  
-                this.jsonDataTypeResource = FileUtils.readFileToString(jsonFile, StandardCharsets.UTF_8);
+        if (jsonFile.exists()) {
+            try {
+                this.snapshot.set(new Snapshot(FileUtils.readFileToString(jsonFile, StandardCharsets.UTF_8)));
             } catch(Exception e) {
                 LOGGER.warn("Data type json file cannot be read", e);
             }
         }
-        // get default current path
-        this.defaultPath = Paths.get(".").toAbsolutePath().normalize().toString();
+        // if the json resource file is not available, we need to sync it
+        if (this.snapshot.get() == null)
+            resync();
     }
 
-    public Response getJsonDataTypes() {
-        if (jsonDataTypeResource == null)
-            return getResyncJsonDataTypes();
-        // if the json resource file is not available, we need to sync it 
-        return Response.status(Status.OK).entity(jsonDataTypeResource).type(MediaType.APPLICATION_JSON).build();
+    /**
+     * Serve the json datatype resource, 304 if the client has the current version (If-None-Match
+     * or If-Modified-Since), gzipped if the client accepts it. If the resource is not available
+     * yet, a sync is started in the background and 503 is returned.
+     */
+    public Response getJsonDataTypes(Request request, HttpHeaders headers) {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            resync();
+            return Response.status(Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER)
+                .build();
+        }
+        return serve(current, request, headers);
     }
 
-    public Response getResyncJsonDataTypes() {
-        // external call to the python script crawling the wiki in a separate thread
-
-        ProcessBuilder processBuilder = new ProcessBuilder();
-        processBuilder.command("python3", "script/converter.py", "resources/dataset/dataseer/csv/all-1.csv");
-        // ensure we are using the right path to the script
-        processBuilder.directory(new File(this.defaultPath));
-        LOGGER.info("calling script:" + processBuilder.command());
+    /**
+     * Re-sync the json datatype resource with the DataSeer Wiki and serve the new version.
+     * Concurrent calls share the same sync. If the sync fails, the current resource is served as
+     * before the sync, 503 is returned only if no resource is available at all.
+     */
+    public Response getResyncJsonDataTypes(Request request, HttpHeaders headers) {
+        Snapshot current = null;
         try {
-            long start = System.currentTimeMillis();
-            Process process = processBuilder.start();
-
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-
-            StringBuilder builder = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                builder.append(line);
-                builder.append(System.getProperty("line.separator"));
-            }
+            current = resync().get(RESYNC_TIMEOUT, TimeUnit.SECONDS);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch(ExecutionException e) {
+            LOGGER.error("Sync with online DataSeer wiki failed", e.getCause());
+        } catch(TimeoutException e) {
+            LOGGER.warn("Sync with online DataSeer wiki not completed after " + RESYNC_TIMEOUT + 
+                " seconds, the current resource is served");
+        }
+        if (current == null) {
+            // sync failed, fall back to the resource already loaded
+            current = snapshot.get();
+        }
+        if (current == null) {
+            return Response.status(Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER)
+                .build();
+        }
+        return serve(current, request, headers);
+    }
 
-            int exitCode = process.waitFor();
-            long end = System.currentTimeMillis();
-            LOGGER.info("Exit code : " + exitCode);
-            LOGGER.info("Sync with online DataSeer wiki made in " + ((end - start)/1000) + " seconds");
+    private static Response serve(Snapshot current, Request request, HttpHeaders headers) {
+        CacheControl cacheControl = new CacheControl();
+        // clients can keep the resource but have to revalidate it
+        cacheControl.setNoCache(true);
 
-            if (builder.length()>0)
-                jsonDataTypeResource = builder.toString();
-        } catch (Exception e) {
-            e.printStackTrace();
-        } 
+        Response.ResponseBuilder builder = (request != null) ?
+            request.evaluatePreconditions(current.lastModified, current.etag) : null;
+        if (builder != null) {
+            // 304 not modified
+            return builder.cacheControl(cacheControl).build();
+        }
 
-        return Response.status(Status.OK).entity(jsonDataTypeResource).type(MediaType.APPLICATION_JSON).build();
+        boolean gzip = false;
+        if (headers != null) {
+            String acceptEncoding = headers.getHeaderString(HttpHeaders.ACCEPT_ENCODING);
+            gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        }
+        builder = Response.status(Status.OK)
+            .entity(gzip ? current.gzippedJson : current.json)
+            .type(MediaType.APPLICATION_JSON + "; charset=UTF-8")
+            .tag(current.etag)
+            .lastModified(current.lastModified)
+            .cacheControl(cacheControl)
+            .header("Vary", HttpHeaders.ACCEPT_ENCODING);
+        if (gzip)
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return builder.build();
     }
 
-    public Response getResyncThreadedJsonDataTypes() {
-        // external call to the python script crawling the wiki in a separate thread
-
-        ExecutorService pool = Executors.newSingleThreadExecutor();
+    /**
+     * Start a sync if none is in progress
+     * @return the sync in progress, giving the new snapshot or null if the sync failed
+     */
+    private CompletableFuture<Snapshot> resync() {
+        while (true) {
+            CompletableFuture<Snapshot> inProgress = resync.get();
+            if (inProgress != null)
+                return inProgress;
+            CompletableFuture<Snapshot> future = new CompletableFuture<>();
+            if (resync.compareAndSet(null, future)) {
+                resyncExecutor.execute(() -> {
+                    Snapshot result = null;
+                    try {
+                        // the current resource is only replaced by a complete and valid one
+                        String json = runConverter();
+                        validate(json);
+                        result = new Snapshot(json);
+                        snapshot.set(result);
+                    } catch(Exception e) {
+                        LOGGER.error("Sync with online DataSeer wiki failed", e);
+                    } finally {
+                        resync.set(null);
+                        future.complete(result);
+                    }
+                });
+                return future;
+            }
+        }
+    }
 
+    /**
+     * External call to the python script crawling the wiki, the error output of the script goes to 
+     * the error output of the service so that it can never block the script
+     * @return the json datatype resource produced by the script
+     * @throws IOException if the script fails
+     */
+    private String runConverter() throws IOException, InterruptedException {
         ProcessBuilder processBuilder = new ProcessBuilder();
         processBuilder.command("python3", "script/converter.py", "resources/dataset/dataseer/csv/all-1.csv");
         // ensure we are using the right path to the script
         processBuilder.directory(new File(this.defaultPath));
+        processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
         LOGGER.info("calling script:" + processBuilder.command());
-        try {
-            long theStart = System.currentTimeMillis();
-            Process process = processBuilder.start();
 
-            ProcessReadTask task = new ProcessReadTask(process.getInputStream());
-            Future<List<String>> future = pool.submit(task);
-            pool.shutdown();
+        long start = System.currentTimeMillis();
+        Process process = processBuilder.start();
 
-            StringBuilder builder = new StringBuilder();
-            //ExecutorCompletionService service = new ExecutorCompletionService(pool);
-            while (!pool.isTerminated()) {
-                Thread.sleep(1000);
-            }
-            
-            List<String> result = future.get();
-            for(String line : result) {
+        StringBuilder builder = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
                 builder.append(line);
                 builder.append(System.getProperty("line.separator"));
             }
-
-            long theEnd = System.currentTimeMillis();
-            LOGGER.info("Sync with online DataSeer wiki made in " + ((theEnd - theStart)/1000) + " milliseconds");
-
-            if (builder.length()>0)
-                jsonDataTypeResource = builder.toString();
-        } catch (Exception e) {
-            e.printStackTrace();
-        } finally {
-            pool.shutdown();
         }
 
-        return Response.status(Status.OK).entity(jsonDataTypeResource).type(MediaType.APPLICATION_JSON).build();
-    }
-
-    private static class ProcessReadTask implements Callable<List<String>> {
+        int exitCode = process.waitFor();
+        long end = System.currentTimeMillis();
+        LOGGER.info("Exit code : " + exitCode);
+        LOGGER.info("Sync with online DataSeer wiki made in " + ((end - start)/1000) + " seconds");
+        if (exitCode != 0)
+            throw new IOException("The DataSeer wiki converter failed with exit code " + exitCode);
 
-        private InputStream inputStream;
+        return builder.toString();
+    }
 
-        public ProcessReadTask(InputStream inputStream) {
-            this.inputStream = inputStream;
-        }
+    /**
+     * @throws IOException if the json datatype resource produced by the script is not a JSON object
+     */
+    private static void validate(String json) throws IOException {
+        if (json == null || json.trim().length() == 0)
+            throw new IOException("The DataSeer wiki converter produced no data type");
+        JsonNode root = new ObjectMapper().readTree(json);
+        if (root == null || !root.isObject() || root.size() == 0)
+            throw new IOException("The DataSeer wiki converter did not produce a JSON object of data types");
+    }
 
-        @Override
-        public List<String> call() {
-            return new BufferedReader(new InputStreamReader(inputStream))
-                .lines()
-                .collect(Collectors.toList());
+    private static String digest(byte[] content) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            StringBuilder hex = new StringBuilder();
+            for (byte b : md.digest(content))
+                hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch(Exception e) {
+            // SHA-256 is always available
+            return Integer.toHexString(java.util.Arrays.hashCode(content));
         }
     }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,150 @@
+package org.grobid.service.controller;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An asynchronous processing job, as persisted in the job store and returned to the client.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DataseerJob {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED;
+
+        public boolean isFinished() {
+            return this == DONE || this == FAILED;
+        }
+    }
+
+    private String id;
+    private Status status;
+    private long submitted;
+    private Long started = null;
+    private Long finished = null;
+    private String error = null;
+    // GROBID profile name, null for the configured profile
+    private String profile = null;
+
+    // callbacks of the clients waiting for the job to be finished, not persisted
+    private final transient List<Runnable> completionListeners = new ArrayList<>();
+
+    public DataseerJob() {
+    }
+
+    public DataseerJob(String id) {
+        this.id = id;
+        this.status = Status.QUEUED;
+        this.submitted = System.currentTimeMillis();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public synchronized Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        List<Runnable> listeners = null;
+        synchronized (this) {
+            this.status = status;
+            if (status.isFinished() && !completionListeners.isEmpty()) {
+                listeners = new ArrayList<>(completionListeners);
+                completionListeners.clear();
+            }
+        }
+        // notify the clients waiting for the job, outside of the lock
+        if (listeners != null) {
+            for (Runnable listener : listeners)
+                listener.run();
+        }
+    }
+
+    public void start() {
+        synchronized (this) {
+            this.started = System.currentTimeMillis();
+        }
+        setStatus(Status.RUNNING);
+    }
+
+    public void complete() {
+        synchronized (this) {
+            this.finished = System.currentTimeMillis();
+        }
+        setStatus(Status.DONE);
+    }
+
+    public void fail(String error) {
+        synchronized (this) {
+            this.finished = System.currentTimeMillis();
+            this.error = error;
+        }
+        setStatus(Status.FAILED);
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public void setSubmitted(long submitted) {
+        this.submitted = submitted;
+    }
+
+    public synchronized Long getStarted() {
+        return started;
+    }
+
+    public void setStarted(Long started) {
+        this.started = started;
+    }
+
+    public synchronized Long getFinished() {
+        return finished;
+    }
+
+    public void setFinished(Long finished) {
+        this.finished = finished;
+    }
+
+    public String getProfile() {
+        return profile;
+    }
+
+    public void setProfile(String profile) {
+        this.profile = profile;
+    }
+
+    public synchronized String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    /**
+     * Run the listener when the job is finished, immediately if it is already finished. The 
+     * listener is run by the thread finishing the job, it must not block.
+     */
+    public void addCompletionListener(Runnable listener) {
+        synchronized (this) {
+            if (!status.isFinished()) {
+                completionListeners.add(listener);
+                return;
+            }
+        }
+        listener.run();
+    }
+
+    public synchronized void removeCompletionListener(Runnable listener) {
+        completionListeners.remove(listener);
+    }
+}
@@ -0,0 +1,268 @@
+package org.grobid.service.controller;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.apache.commons.io.FileUtils;
+import org.grobid.core.engines.DataseerClassifier;
+import org.grobid.core.engines.GrobidProfile;
+import org.grobid.core.utilities.DataseerConfiguration;
+import org.grobid.service.GrobidEngineInitialiser;
+import org.grobid.service.configuration.DataseerServiceConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Asynchronous processing of PDF documents. A submitted PDF is stored in the job store and
+ * processed by a bounded pool of workers, the client gets a job id immediately and then polls
+ * the job status and fetches the enriched TEI when the job is done.
+ *
+ * The job store is a directory with one sub-directory per job, containing the job description
+ * (job.json), the uploaded PDF and the resulting TEI. Jobs not finished when the service stops
+ * are resumed at the next start. Finished jobs are removed after the retention period.
+ */
+@Singleton
+public class DataseerJobService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataseerJobService.class);
+
+    private static final String JOB_FILE = "job.json";
+    private static final String INPUT_FILE = "input.pdf";
+    private static final String RESULT_FILE = "result.tei.xml";
+
+    private final Map<String, DataseerJob> jobs = new ConcurrentHashMap<>();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final File jobDirectory;
+    private final long retentionMillis;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService cleaner;
+
+    private final Counter completedJobs;
+    private final Counter failedJobs;
+    private final Counter rejectedJobs;
+    private final Timer processingTimer;
+
+    @Inject
+    public DataseerJobService(GrobidEngineInitialiser initialiser, DataseerServiceConfiguration serviceConfiguration,
+                              MetricRegistry metricRegistry) {
+        DataseerConfiguration configuration = serviceConfiguration.getDataseerConfiguration();
+        String jobPath = configuration.getJobPath();
+        if (jobPath == null || jobPath.trim().length() == 0)
+            jobPath = configuration.getTmpPath() + File.separator + "jobs";
+        this.jobDirectory = new File(jobPath).getAbsoluteFile();
+        if (!jobDirectory.exists() && !jobDirectory.mkdirs())
+            LOGGER.error("Cannot create the job directory " + jobDirectory.getPath());
+        this.retentionMillis = TimeUnit.HOURS.toMillis(configuration.getJobRetentionHours());
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        int nbThreads = Math.max(1, configuration.getJobThreads());
+        this.executor = new ThreadPoolExecutor(nbThreads, nbThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, configuration.getJobQueueSize())),
+            r -> {
+                Thread thread = new Thread(r, "dataseer-job-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        metricRegistry.register(MetricRegistry.name(DataseerJobService.class, "queued"),
+            (Gauge<Integer>) () -> executor.getQueue().size());
+        metricRegistry.register(MetricRegistry.name(DataseerJobService.class, "running"),
+            (Gauge<Integer>) executor::getActiveCount);
+        metricRegistry.register(MetricRegistry.name(DataseerJobService.class, "remainingCapacity"),
+            (Gauge<Integer>) () -> executor.getQueue().remainingCapacity());
+        this.completedJobs = metricRegistry.counter(MetricRegistry.name(DataseerJobService.class, "completed"));
+        this.failedJobs = metricRegistry.counter(MetricRegistry.name(DataseerJobService.class, "failed"));
+        this.rejectedJobs = metricRegistry.counter(MetricRegistry.name(DataseerJobService.class, "rejected"));
+        this.processingTimer = metricRegistry.timer(MetricRegistry.name(DataseerJobService.class, "processing"));
+
+        recoverJobs();
+
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "dataseer-job-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cleaner.scheduleWithFixedDelay(this::removeExpiredJobs, 10, 10, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Store the uploaded PDF and queue its processing.
+     *
+     * @param profile GROBID profile of the conversion, the configured one if null
+     * @return the new job
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public DataseerJob submit(InputStream inputStream, GrobidProfile profile) throws IOException {
+        String id = UUID.randomUUID().toString();
+        File directory = new File(jobDirectory, id);
+        if (!directory.mkdirs())
+            throw new IOException("Cannot create the job directory " + directory.getPath());
+
+        DataseerJob job = new DataseerJob(id);
+        if (profile != null)
+            job.setProfile(profile.getName());
+        try {
+            Files.copy(inputStream, new File(directory, INPUT_FILE).toPath());
+            save(job);
+            jobs.put(id, job);
+            executor.execute(() -> process(job));
+        } catch(IOException | RuntimeException e) {
+            jobs.remove(id);
+            FileUtils.deleteQuietly(directory);
+            if (e instanceof RejectedExecutionException)
+                rejectedJobs.inc();
+            throw e;
+        }
+        return job;
+    }
+
+    public DataseerJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * @return the file of the enriched TEI of a job, null if the job is not done
+     */
+    public File getResult(DataseerJob job) {
+        if (job.getStatus() != DataseerJob.Status.DONE)
+            return null;
+        File result = new File(new File(jobDirectory, job.getId()), RESULT_FILE);
+        return result.exists() ? result : null;
+    }
+
+    public String toJson(DataseerJob job) throws IOException {
+        return mapper.writeValueAsString(job);
+    }
+
+    /**
+     * Number of seconds a client should wait before submitting a job again when the queue is full,
+     * estimated from the mean processing time
+     */
+    public long getRetryAfterSeconds() {
+        double meanSeconds = processingTimer.getSnapshot().getMean() / TimeUnit.SECONDS.toNanos(1);
+        int nbThreads = executor.getMaximumPoolSize();
+        return Math.max(1, (long) Math.ceil(meanSeconds / nbThreads));
+    }
+
+    private void process(DataseerJob job) {
+        File directory = new File(jobDirectory, job.getId());
+        File input = new File(directory, INPUT_FILE);
+        job.start();
+        saveQuietly(job);
+        try (Timer.Context context = processingTimer.time()) {
+            GrobidProfile profile = GrobidProfile.fromName(job.getProfile());
+            String tei = DataseerClassifier.getInstance().processPDF(input.getAbsolutePath(), profile);
+            if (tei == null || tei.trim().length() == 0)
+                throw new IllegalStateException("The processing of the PDF returned no result");
+            writeAtomically(new File(directory, RESULT_FILE), tei.getBytes(UTF_8));
+            FileUtils.deleteQuietly(input);
+            job.complete();
+            completedJobs.inc();
+        } catch(Exception e) {
+            LOGGER.error("Processing of the job " + job.getId() + " failed", e);
+            job.fail(e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+            failedJobs.inc();
+        }
+        saveQuietly(job);
+    }
+
+    private void save(DataseerJob job) throws IOException {
+        File directory = new File(jobDirectory, job.getId());
+        writeAtomically(new File(directory, JOB_FILE), mapper.writeValueAsBytes(job));
+    }
+
+    private void saveQuietly(DataseerJob job) {
+        try {
+            save(job);
+        } catch(IOException e) {
+            LOGGER.warn("Cannot save the state of the job " + job.getId(), e);
+        }
+    }
+
+    private static void writeAtomically(File file, byte[] content) throws IOException {
+        Path tmpPath = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+        try {
+            Files.write(tmpPath, content);
+            try {
+                Files.move(tmpPath, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch(AtomicMoveNotSupportedException e) {
+                Files.move(tmpPath, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmpPath);
+        }
+    }
+
+    /**
+     * Reload the job store, jobs interrupted by a restart are queued again
+     */
+    private void recoverJobs() {
+        File[] directories = jobDirectory.listFiles(File::isDirectory);
+        if (directories == null)
+            return;
+        List<DataseerJob> pending = new ArrayList<>();
+        for (File directory : directories) {
+            File jobFile = new File(directory, JOB_FILE);
+            DataseerJob job = null;
+            try {
+                if (jobFile.exists())
+                    job = mapper.readValue(jobFile, DataseerJob.class);
+            } catch(IOException e) {
+                LOGGER.warn("Invalid job description " + jobFile.getPath(), e);
+            }
+            if (job == null || !directory.getName().equals(job.getId())) {
+                // incomplete submission
+                FileUtils.deleteQuietly(directory);
+                continue;
+            }
+            jobs.put(job.getId(), job);
+            if (!job.getStatus().isFinished()) {
+                if (new File(directory, INPUT_FILE).exists()) {
+                    job.setStatus(DataseerJob.Status.QUEUED);
+                    job.setStarted(null);
+                    pending.add(job);
+                } else {
+                    job.fail("Input document lost");
+                    saveQuietly(job);
+                }
+            }
+        }
+        // resume in submission order
+        pending.sort(Comparator.comparingLong(DataseerJob::getSubmitted));
+        for (DataseerJob job : pending) {
+            try {
+                executor.execute(() -> process(job));
+            } catch(RejectedExecutionException e) {
+                job.fail("Job queue full at restart");
+                saveQuietly(job);
+            }
+        }
+        if (jobs.size() > 0)
+            LOGGER.info(jobs.size() + " jobs loaded from the job store, " + pending.size() + " resumed");
+    }
+
+    private void removeExpiredJobs() {
+        long limit = System.currentTimeMillis() - retentionMillis;
+        for (DataseerJob job : new ArrayList<>(jobs.values())) {
+            Long finished = job.getFinished();
+            if (job.getStatus().isFinished() && finished != null && finished < limit) {
+                jobs.remove(job.getId());
+                FileUtils.deleteQuietly(new File(jobDirectory, job.getId()));
+            }
+        }
+    }
+}
@@ -22,6 +22,11 @@ public interface DataseerPaths {
      */
     public static final String PATH_DATASEER_SENTENCE = "processDataseerSentence";
 
+    /**
+     * path extension for processing a list of sentences, given as JSON array or NDJSON.
+     */
+    public static final String PATH_DATASEER_SENTENCES = "processDataseerSentences";
+
     /**
      * path extension for processing a TEI file 
      * (for instance produced by GROBID or Pub2TEI).
@@ -39,6 +44,21 @@ public interface DataseerPaths {
      */
     public static final String PATH_DATASEER_PDF = "processDataseerPDF";
 
+    /**
+     * path extension for submitting a PDF file to be processed asynchronously.
+     */
+    public static final String PATH_DATASEER_PDF_JOB = "jobs/processDataseerPDF";
+
+    /**
+     * path extension for getting the status of an asynchronous job.
+     */
+    public static final String PATH_JOB = "jobs/{id}";
+
+    /**
+     * path extension for getting the result of an asynchronous job.
+     */
+    public static final String PATH_JOB_RESULT = "jobs/{id}/result";
+
     /**
      * path extension for annotating a PDF file with the dataset-relevant sentences.
      */
@@ -3,10 +3,15 @@ package org.grobid.service.controller;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
+import com.google.common.hash.HashCode;
+
 import org.apache.commons.lang3.StringUtils;
 import org.grobid.core.document.Document;
 import org.grobid.core.engines.DataseerClassifier;
+import org.grobid.core.engines.DocumentResultCache;
 import org.grobid.core.engines.Engine;
+import org.grobid.core.engines.GrobidProfile;
+import org.grobid.core.engines.TEIStreamingEnricher;
 import org.grobid.core.engines.config.GrobidAnalysisConfig;
 import org.grobid.core.factory.GrobidFactory;
 import org.grobid.core.layout.Page;
@@ -17,12 +22,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.grobid.service.exceptions.DataseerServiceException;
 
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+import javax.xml.stream.XMLStreamException;
 import java.io.File;
 import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -38,6 +48,9 @@ public class DataseerProcessFile {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(DataseerProcessFile.class);
 
+    // response header telling if the result comes from the document cache
+    public static final String CACHE_STATUS_HEADER = "X-Dataseer-Cache";
+
     @Inject
     public DataseerProcessFile() {
     }
@@ -49,21 +62,50 @@ public class DataseerProcessFile {
      * @return a response object which contains an enriched TEI representation of the document
      */
     public static Response processTEI(final InputStream inputStream) {
+        DataseerClassifier classifier = DataseerClassifier.getInstance();
+        if (classifier.getDocumentCache() != null) {
+            return processWithCache(classifier.getDocumentCache(), inputStream, ".tei.xml", "processDataseerTEI", 
+                MediaType.APPLICATION_XML, file -> classifier.processTEI(file.getAbsolutePath(), true, false));
+        }
         LOGGER.debug(methodLogIn());
         String retVal = null;
         Response response = null;
         File originFile = null;
-        DataseerClassifier classifier = DataseerClassifier.getInstance();
         try {
-            originFile = ArticleUtilities.writeInputFile(inputStream, ".tei.xml");
-            if (originFile == null) {
-                LOGGER.error("The input file cannot be written.");
-                throw new DataseerServiceException(
-                    "The input file cannot be written. ", Status.INTERNAL_SERVER_ERROR);
-            } 
+            if (classifier.useStreamingEnrichment()) {
+                // the streaming pipeline reads the document twice, so it has to be spooled once
+                originFile = ArticleUtilities.writeInputFile(inputStream, ".tei.xml");
+                if (originFile == null) {
+                    LOGGER.error("The input file cannot be written.");
+                    throw new DataseerServiceException(
+                        "The input file cannot be written. ", Status.INTERNAL_SERVER_ERROR);
+                } 
+                // parsing and classification before the response, only the enriched TEI is streamed
+                final TEIStreamingEnricher.PreparedEnrichment enrichment = classifier.prepareTEI(originFile, true);
+                final File teiFile = originFile;
+                // the file is now removed after the response is written
+                originFile = null;
+                StreamingOutput output = out -> {
+                    try {
+                        enrichment.write(out);
+                    } catch(XMLStreamException e) {
+                        throw new WebApplicationException(e);
+                    } finally {
+                        IOUtilities.removeTempFile(teiFile);
+                    }
+                };
+                response = Response.status(Response.Status.OK)
+                    .entity(output)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_XML + "; charset=UTF-8")
+                    .header("Access-Control-Allow-Origin", "*")
+                    .header("Access-Control-Allow-Methods", "GET, POST, DELETE, PUT")
+                    .build();
+                LOGGER.debug(methodLogOut());
+                return response;
+            }
 
-            // starts conversion process
-            retVal = classifier.processTEI(originFile.getAbsolutePath(), true, false);
+            // starts conversion process, directly from the uploaded stream
+            retVal = classifier.processTEI(inputStream, true);
 
             if (!isResultOK(retVal)) {
                 response = Response.status(Response.Status.NO_CONTENT).build();
@@ -94,21 +136,17 @@ public class DataseerProcessFile {
      * @return a response object which contains an enriched TEI representation of the document
      */
     public static Response processJATS(final InputStream inputStream) {
+        DataseerClassifier classifier = DataseerClassifier.getInstance();
+        if (classifier.getDocumentCache() != null) {
+            return processWithCache(classifier.getDocumentCache(), inputStream, ".xml", "processDataseerJATS", 
+                MediaType.APPLICATION_XML, file -> classifier.processJATS(file.getAbsolutePath()));
+        }
         LOGGER.debug(methodLogIn());
         String retVal = null;
         Response response = null;
-        File originFile = null;
-        DataseerClassifier classifier = DataseerClassifier.getInstance();
         try {
-            originFile = ArticleUtilities.writeInputFile(inputStream, ".xml");
-            if (originFile == null) {
-                LOGGER.error("The input file cannot be written.");
-                throw new DataseerServiceException(
-                    "The input file cannot be written. ", Status.INTERNAL_SERVER_ERROR);
-            } 
-
-            // starts conversion process
-            retVal = classifier.processJATS(originFile.getAbsolutePath());
+            // starts conversion process, the uploaded stream is transformed in memory
+            retVal = classifier.processJATS(inputStream);
 
             if (!isResultOK(retVal)) {
                 response = Response.status(Response.Status.NO_CONTENT).build();
@@ -123,9 +161,6 @@ public class DataseerProcessFile {
         } catch (Exception exp) {
             LOGGER.error("An unexpected exception occurs. ", exp);
             response = Response.status(Status.INTERNAL_SERVER_ERROR).entity(exp.getMessage()).build();
-        } finally {
-            if (originFile != null)
-                IOUtilities.removeTempFile(originFile);
         }
 
         LOGGER.debug(methodLogOut());
@@ -137,14 +172,26 @@ public class DataseerProcessFile {
      * identify dataset introductory section, segment and classify sentences.
      *
      * @param inputStream the data of origin PDF document
+     * @param profileName name of the GROBID conversion profile, the configured one if null
      * @return a response object which contains an enriched TEI representation of the document
      */
-    public static Response processPDF(final InputStream inputStream) {
+    public static Response processPDF(final InputStream inputStream, final String profileName) {
         LOGGER.debug(methodLogIn());
         String retVal = null;
         Response response = null;
         File originFile = null;
+        GrobidProfile profile = null;
+        try {
+            profile = GrobidProfile.fromName(profileName);
+        } catch(IllegalArgumentException e) {
+            return Response.status(Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
         DataseerClassifier classifier = DataseerClassifier.getInstance();
+        if (classifier.getDocumentCache() != null) {
+            final GrobidProfile theProfile = (profile != null) ? profile : classifier.getGrobidProfile();
+            return processWithCache(classifier.getDocumentCache(), inputStream, ".pdf", "processDataseerPDF/" + theProfile, 
+                MediaType.APPLICATION_XML, file -> classifier.processPDF(file.getAbsolutePath(), theProfile));
+        }
         try {
             originFile = IOUtilities.writeInputFile(inputStream);
             if (originFile == null) {
@@ -154,7 +201,7 @@ public class DataseerProcessFile {
             } 
 
             // starts conversion process
-            retVal = classifier.processPDF(originFile.getAbsolutePath());
+            retVal = classifier.processPDF(originFile.getAbsolutePath(), profile);
 
             if (!isResultOK(retVal)) {
                 response = Response.status(Response.Status.NO_CONTENT).build();
@@ -183,14 +230,26 @@ public class DataseerProcessFile {
      * introductory section, segment and classify sentences, return JSON response as layer annotations.
      *
      * @param inputStream the data of origin PDF document
+     * @param profileName name of the GROBID conversion profile, the configured one if null
      * @return a response object which contains JSON annotation enrichments
      */
-    public static Response processPDFAnnotation(final InputStream inputStream) {
+    public static Response processPDFAnnotation(final InputStream inputStream, final String profileName) {
         LOGGER.debug(methodLogIn());
         String retVal = null;
         Response response = null;
         File originFile = null;
+        GrobidProfile profile = null;
+        try {
+            profile = GrobidProfile.fromName(profileName);
+        } catch(IllegalArgumentException e) {
+            return Response.status(Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
         DataseerClassifier classifier = DataseerClassifier.getInstance();
+        if (classifier.getDocumentCache() != null) {
+            final GrobidProfile theProfile = (profile != null) ? profile : classifier.getGrobidProfile();
+            return processWithCache(classifier.getDocumentCache(), inputStream, ".pdf", "annotateDataseerPDF/" + theProfile, 
+                MediaType.APPLICATION_JSON, file -> classifier.annotatePDF(file.getAbsolutePath(), theProfile));
+        }
         try {
             originFile = IOUtilities.writeInputFile(inputStream);
             if (originFile == null) {
@@ -199,8 +258,83 @@ public class DataseerProcessFile {
                     "The input file cannot be written. ", Status.INTERNAL_SERVER_ERROR);
             } 
 
-            response = Response.status(Response.Status.NO_CONTENT).build();
-            
+            long start = System.currentTimeMillis();
+            retVal = classifier.annotatePDF(originFile.getAbsolutePath(), profile);
+            LOGGER.debug("PDF annotation in " + (System.currentTimeMillis() - start) + " ms");
+
+            if (!isResultOK(retVal)) {
+                response = Response.status(Response.Status.NO_CONTENT).build();
+            } else {
+                response = Response.status(Response.Status.OK)
+                    .entity(retVal)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON + "; charset=UTF-8")
+                    .header("Access-Control-Allow-Origin", "*")
+                    .header("Access-Control-Allow-Methods", "GET, POST, DELETE, PUT")
+                    .build();
+            }
+        } catch (Exception exp) {
+            LOGGER.error("An unexpected exception occurs. ", exp);
+            response = Response.status(Status.INTERNAL_SERVER_ERROR).entity(exp.getMessage()).build();
+        } finally {
+            if (originFile != null)
+                IOUtilities.removeTempFile(originFile);
+        }
+
+        LOGGER.debug(methodLogOut());
+        return response;
+    }
+
+    /**
+     * Processing of an uploaded document saved in a temporary file
+     */
+    interface DocumentProcessing {
+        String process(File input) throws Exception;
+    }
+
+    /**
+     * Process an uploaded document through the document cache: the upload is saved while its
+     * SHA-256 is computed, a result already produced for the same document, processing, models
+     * and configuration is returned directly, otherwise the document is processed and its result
+     * is cached.
+     *
+     * @param processingName the endpoint and its options, part of the cache key
+     */
+    private static Response processWithCache(DocumentResultCache cache, final InputStream inputStream, 
+                                             String extension, String processingName, String mediaType, 
+                                             DocumentProcessing processing) {
+        LOGGER.debug(methodLogIn());
+        Response response = null;
+        File originFile = null;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            originFile = ArticleUtilities.writeInputFile(new DigestInputStream(inputStream, digest), extension);
+            if (originFile == null) {
+                LOGGER.error("The input file cannot be written.");
+                throw new DataseerServiceException(
+                    "The input file cannot be written. ", Status.INTERNAL_SERVER_ERROR);
+            } 
+            String key = cache.key(HashCode.fromBytes(digest.digest()).toString(), processingName);
+
+            String cacheStatus = "hit";
+            String retVal = cache.get(key);
+            if (retVal == null) {
+                cacheStatus = "miss";
+                retVal = processing.process(originFile);
+                if (isResultOK(retVal))
+                    cache.put(key, retVal);
+            }
+
+            if (!isResultOK(retVal)) {
+                response = Response.status(Response.Status.NO_CONTENT).build();
+            } else {
+                response = Response.status(Response.Status.OK)
+                    .entity(retVal)
+                    .header(HttpHeaders.CONTENT_TYPE, mediaType + "; charset=UTF-8")
+                    .header(CACHE_STATUS_HEADER, cacheStatus)
+                    .header("Access-Control-Allow-Origin", "*")
+                    .header("Access-Control-Allow-Methods", "GET, POST, DELETE, PUT")
+                    .build();
+            }
         } catch (Exception exp) {
             LOGGER.error("An unexpected exception occurs. ", exp);
             response = Response.status(Status.INTERNAL_SERVER_ERROR).entity(exp.getMessage()).build();
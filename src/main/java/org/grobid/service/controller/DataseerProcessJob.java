@@ -0,0 +1,159 @@
+package org.grobid.service.controller;
+
+import org.grobid.core.engines.GrobidProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import java.io.File;
+import java.io.InputStream;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous processing of documents: job submission, status and result.
+ */
+public class DataseerProcessJob {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataseerProcessJob.class);
+
+    // maximum time in seconds a status request can wait for the completion of a job
+    private static final int MAX_WAIT = 60;
+
+    /**
+     * Uploads a PDF document to be processed asynchronously.
+     *
+     * @param inputStream the data of origin PDF document
+     * @param profileName name of the GROBID profile, the configured profile if empty
+     * @return a response object with the job description, the job id can then be used for
+     * getting the status and the result of the processing
+     */
+    public static Response submitPDF(DataseerJobService jobService, final InputStream inputStream, String profileName) {
+        LOGGER.debug(methodLogIn());
+        Response response = null;
+        GrobidProfile profile = null;
+        try {
+            profile = GrobidProfile.fromName(profileName);
+        } catch(IllegalArgumentException e) {
+            return Response.status(Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+        try {
+            DataseerJob job = jobService.submit(inputStream, profile);
+            response = Response.status(Status.ACCEPTED)
+                .entity(jobService.toJson(job))
+                .header(HttpHeaders.LOCATION, "jobs/" + job.getId())
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON + "; charset=UTF-8")
+                .header("Access-Control-Allow-Origin", "*")
+                .header("Access-Control-Allow-Methods", "GET, POST, DELETE, PUT")
+                .build();
+        } catch (RejectedExecutionException exp) {
+            LOGGER.warn("Job queue is full, the submission is rejected");
+            response = Response.status(Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, jobService.getRetryAfterSeconds())
+                .build();
+        } catch (Exception exp) {
+            LOGGER.error("An unexpected exception occurs. ", exp);
+            response = Response.status(Status.INTERNAL_SERVER_ERROR).entity(exp.getMessage()).build();
+        }
+        LOGGER.debug(methodLogOut());
+        return response;
+    }
+
+    /**
+     * Get the status of a job. If wait is more than 0, the response is sent when the job is
+     * finished or after wait seconds (long polling). The request is suspended while waiting, 
+     * no server thread is held by a waiting client.
+     */
+    public static void getStatus(DataseerJobService jobService, String id, int wait, final AsyncResponse asyncResponse) {
+        LOGGER.debug(methodLogIn());
+        final DataseerJob job = jobService.getJob(id);
+        long timeout = Math.min(Math.max(wait, 0), MAX_WAIT) * 1000L;
+        if (job == null || timeout == 0 || job.getStatus().isFinished()) {
+            asyncResponse.resume(statusResponse(jobService, job));
+        } else {
+            // resumed by the worker finishing the job or by the timeout, whichever comes first
+            final Runnable listener = () -> asyncResponse.resume(statusResponse(jobService, job));
+            asyncResponse.setTimeoutHandler(response -> {
+                job.removeCompletionListener(listener);
+                response.resume(statusResponse(jobService, job));
+            });
+            asyncResponse.setTimeout(timeout, TimeUnit.MILLISECONDS);
+            job.addCompletionListener(listener);
+        }
+        LOGGER.debug(methodLogOut());
+    }
+
+    /**
+     * @return a response object with the job description
+     */
+    private static Response statusResponse(DataseerJobService jobService, DataseerJob job) {
+        Response response = null;
+        try {
+            if (job == null) {
+                response = Response.status(Status.NOT_FOUND).build();
+            } else {
+                response = Response.status(Status.OK)
+                    .entity(jobService.toJson(job))
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON + "; charset=UTF-8")
+                    .header("Access-Control-Allow-Origin", "*")
+                    .header("Access-Control-Allow-Methods", "GET, POST, DELETE, PUT")
+                    .build();
+            }
+        } catch (Exception exp) {
+            LOGGER.error("An unexpected exception occurs. ", exp);
+            response = Response.status(Status.INTERNAL_SERVER_ERROR).entity(exp.getMessage()).build();
+        }
+        return response;
+    }
+
+    /**
+     * Get the result of a job: the enriched TEI if the job is done, 202 with the job description
+     * if the job is not finished, 500 with the error if the job failed.
+     */
+    public static Response getResult(DataseerJobService jobService, String id) {
+        LOGGER.debug(methodLogIn());
+        Response response = null;
+        try {
+            DataseerJob job = jobService.getJob(id);
+            if (job == null) {
+                response = Response.status(Status.NOT_FOUND).build();
+            } else if (job.getStatus() == DataseerJob.Status.FAILED) {
+                response = Response.status(Status.INTERNAL_SERVER_ERROR).entity(job.getError()).build();
+            } else if (job.getStatus() != DataseerJob.Status.DONE) {
+                response = Response.status(Status.ACCEPTED)
+                    .entity(jobService.toJson(job))
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON + "; charset=UTF-8")
+                    .build();
+            } else {
+                File result = jobService.getResult(job);
+                if (result == null) {
+                    response = Response.status(Status.NOT_FOUND).build();
+                } else {
+                    response = Response.status(Status.OK)
+                        .entity(result)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_XML + "; charset=UTF-8")
+                        .header("Access-Control-Allow-Origin", "*")
+                        .header("Access-Control-Allow-Methods", "GET, POST, DELETE, PUT")
+                        .build();
+                }
+            }
+        } catch (Exception exp) {
+            LOGGER.error("An unexpected exception occurs. ", exp);
+            response = Response.status(Status.INTERNAL_SERVER_ERROR).entity(exp.getMessage()).build();
+        }
+        LOGGER.debug(methodLogOut());
+        return response;
+    }
+
+    public static String methodLogIn() {
+        return ">> " + DataseerProcessJob.class.getName() + "." + Thread.currentThread().getStackTrace()[1].getMethodName();
+    }
+
+    public static String methodLogOut() {
+        return "<< " + DataseerProcessJob.class.getName() + "." + Thread.currentThread().getStackTrace()[1].getMethodName();
+    }
+}
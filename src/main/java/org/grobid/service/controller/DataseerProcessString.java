@@ -3,16 +3,31 @@ package org.grobid.service.controller;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+
 import org.apache.commons.lang3.StringUtils;
+import org.grobid.core.data.SentenceClassification;
 import org.grobid.core.engines.DataseerClassifier;
+import org.grobid.core.utilities.DataseerMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 
@@ -24,6 +39,10 @@ public class DataseerProcessString {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DataseerProcessString.class);
 
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
     @Inject
     public DataseerProcessString() {
     }
@@ -44,9 +63,9 @@ public class DataseerProcessString {
             LOGGER.debug(">> set raw sentence text for stateless service'...");
             
             text = text.replaceAll("\\n", " ").replaceAll("\\t", " ");
-            long start = System.currentTimeMillis();
+            long start = System.nanoTime();
             String retValString = classifier.classify(text);
-            long end = System.currentTimeMillis();
+            DataseerMetrics.timer(DataseerMetrics.SENTENCE_REQUEST).update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
             if (!isResultOK(retValString)) {
                 response = Response.status(Status.NO_CONTENT).build();
@@ -64,6 +83,165 @@ public class DataseerProcessString {
         return response;
     }
 
+    /**
+     * Classify a list of sentences, given as a JSON array or as a stream of JSON values (NDJSON). 
+     * A sentence is either a JSON string or an object with a "text" field. The input is read and 
+     * validated before answering, an invalid input gives a 400 response. Sentences are then 
+     * classified by batches of the size of the model batches and the results are streamed as 
+     * NDJSON, one object per input sentence and in the same order, with the index of the sentence 
+     * in the input and its text as given. Each batch is written as soon as it is classified. A blank 
+     * sentence is not classified, its object has only the index and the text. If the classification 
+     * fails, a last object with an "error" field and the index of the first sentence without result 
+     * ends the stream.
+     * 
+     * @param inputStream the JSON array or NDJSON stream of sentences
+     * @return a response object streaming the NDJSON classification results
+     */
+    public static Response processSentences(final InputStream inputStream) {
+        LOGGER.debug(methodLogIn());
+        Response response = null;
+        try {
+            final DataseerClassifier classifier = DataseerClassifier.getInstance();
+            final int batchSize = Math.max(1, classifier.getDataseerConfiguration().getClassificationBatchSize());
+            final List<String> sentences;
+            try {
+                sentences = readSentences(inputStream);
+            } catch(IOException e) {
+                LOGGER.debug("Invalid list of sentences", e);
+                LOGGER.debug(methodLogOut());
+                return Response.status(Status.BAD_REQUEST).entity(e.getMessage()).type(MediaType.TEXT_PLAIN).build();
+            }
+            StreamingOutput output = out -> classifySentences(classifier, sentences, out, batchSize);
+            response = Response.status(Status.OK)
+                .entity(output)
+                .header(HttpHeaders.CONTENT_TYPE, APPLICATION_NDJSON + "; charset=UTF-8")
+                .build();
+        } catch (NoSuchElementException nseExp) {
+            LOGGER.error("Could not get an instance of DataseerClassifier. Sending service unavailable.");
+            response = Response.status(Status.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            LOGGER.error("An unexpected exception occurs. ", e);
+            response = Response.status(Status.INTERNAL_SERVER_ERROR).build();
+        }
+        LOGGER.debug(methodLogOut());
+        return response;
+    }
+
+    /**
+     * Read all the sentences of the input, a JSON array or a sequence of root values
+     * @throws IOException if the input is not valid JSON or a value is not a sentence
+     */
+    private static List<String> readSentences(InputStream inputStream) throws IOException {
+        List<String> sentences = new ArrayList<>();
+        try (JsonParser parser = jsonFactory.createParser(inputStream)) {
+            JsonToken token = parser.nextToken();
+            boolean array = (token == JsonToken.START_ARRAY);
+            if (array)
+                token = parser.nextToken();
+            while (token != null && !(array && token == JsonToken.END_ARRAY)) {
+                String text = readSentence(parser, token);
+                if (text == null)
+                    throw new IOException("Sentence " + sentences.size() + " has no text field");
+                sentences.add(text);
+                token = parser.nextToken();
+            }
+            if (array && token == null)
+                throw new IOException("Unterminated JSON array of sentences");
+        }
+        return sentences;
+    }
+
+    private static void classifySentences(DataseerClassifier classifier, List<String> sentences, 
+                                          OutputStream out, int batchSize) throws IOException {
+        int nbWritten = 0;
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            // the output stream is closed by the container
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // one JSON object per line
+            generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            try {
+                List<Integer> batch = new ArrayList<>();
+                for (int i = 0; i < sentences.size(); i++) {
+                    batch.add(i);
+                    if (batch.size() >= batchSize || i == sentences.size() - 1) {
+                        writeBatch(classifier, sentences, batch, generator);
+                        nbWritten += batch.size();
+                        batch.clear();
+                    }
+                }
+            } catch(IOException e) {
+                // the client is gone
+                throw e;
+            } catch(Exception e) {
+                LOGGER.error("Classification of the sentences failed at sentence " + nbWritten, e);
+                generator.writeStartObject();
+                generator.writeNumberField("index", nbWritten);
+                generator.writeStringField("error", "Classification failed: " + e.getMessage());
+                generator.writeEndObject();
+            }
+            if (sentences.size() > 0)
+                generator.writeRaw("\n");
+        }
+        LOGGER.debug(nbWritten + " sentences classified");
+    }
+
+    private static String readSentence(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_STRING)
+            return parser.getText();
+        if (token == JsonToken.START_OBJECT) {
+            String text = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("text".equals(field) && value == JsonToken.VALUE_STRING)
+                    text = parser.getText();
+                else
+                    parser.skipChildren();
+            }
+            return text;
+        }
+        throw new IOException("Unexpected JSON value for a sentence: " + token);
+    }
+
+    /**
+     * Classify the sentences of a batch and write one object per sentence, blank sentences and 
+     * sentences without result (model failure) are written without classification
+     */
+    private static void writeBatch(DataseerClassifier classifier, List<String> sentences, List<Integer> batch, 
+                                   JsonGenerator generator) throws Exception {
+        List<String> texts = new ArrayList<>();
+        for (Integer index : batch) {
+            String text = normalize(sentences.get(index));
+            if (text.length() > 0)
+                texts.add(text);
+        }
+        List<SentenceClassification> results = classifier.classifySentences(texts);
+        // the results are in the order of the texts, the missing ones are skipped
+        int next = 0;
+        for (Integer index : batch) {
+            String text = normalize(sentences.get(index));
+            generator.writeStartObject();
+            generator.writeNumberField("index", index);
+            generator.writeStringField("text", sentences.get(index));
+            if (text.length() > 0 && next < results.size() && text.equals(results.get(next).getText())) {
+                results.get(next).writeJsonScores(generator);
+                next++;
+            }
+            generator.writeEndObject();
+        }
+        // the results of the batch are sent to the client right away
+        generator.flush();
+    }
+
+    /**
+     * Text given to the classifier for a sentence, empty for a blank sentence
+     */
+    private static String normalize(String sentence) {
+        if (sentence.trim().length() == 0)
+            return "";
+        return sentence.replaceAll("\\n", " ").replaceAll("\\t", " ");
+    }
+
     /**
      * @return
      */
@@ -0,0 +1,55 @@
+package org.grobid.service.controller;
+
+import com.google.common.collect.ImmutableMultimap;
+import io.dropwizard.servlets.tasks.Task;
+
+import org.grobid.core.engines.DataseerClassifier;
+import org.grobid.core.engines.DocumentResultCache;
+
+import java.io.PrintWriter;
+
+/**
+ * Administration of the document cache on the admin port:
+ *
+ * curl -X POST localhost:8061/tasks/document-cache-stats
+ * curl -X POST localhost:8061/tasks/document-cache-purge
+ */
+public class DocumentCacheTask extends Task {
+
+    public enum Action {
+        STATS("document-cache-stats"),
+        PURGE("document-cache-purge");
+
+        private final String taskName;
+
+        private Action(String taskName) {
+            this.taskName = taskName;
+        }
+    }
+
+    private final Action action;
+
+    public DocumentCacheTask(Action action) {
+        super(action.taskName);
+        this.action = action;
+    }
+
+    @Override
+    public void execute(ImmutableMultimap<String, String> parameters, PrintWriter output) throws Exception {
+        DocumentResultCache cache = DataseerClassifier.getInstance().getDocumentCache();
+        if (cache == null) {
+            output.println("The document cache is disabled (documentCache in resources/config/dataseer-ml.yml)");
+            return;
+        }
+        switch (action) {
+            case STATS:
+                output.print(cache.getStatistics());
+                break;
+            case PURGE:
+                int removed = cache.purge();
+                output.println("Document cache purged, " + removed + " entries removed from disk");
+                break;
+        }
+        output.flush();
+    }
+}
@@ -0,0 +1,78 @@
+package org.grobid.core.analyzers;
+
+import org.grobid.core.layout.LayoutToken;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.StringTokenizer;
+
+import static org.junit.Assert.assertEquals;
+
+public class DataseerAnalyzerTest {
+
+    private DataseerAnalyzer analyzer = DataseerAnalyzer.getInstance();
+
+    /**
+     * Reference tokenization, with StringTokenizer and a regular expression split
+     */
+    private static List<String> referenceTokenize(String text) {
+        List<String> result = new ArrayList<>();
+        StringTokenizer st = new StringTokenizer(text, DataseerAnalyzer.DELIMITERS, true);
+        while (st.hasMoreTokens()) {
+            String token = st.nextToken();
+            result.addAll(Arrays.asList(token.split("(?<=[a-zA-Z])(?=\\d)|(?<=\\d)(?=\\D)")));
+        }
+        return result;
+    }
+
+    @Test
+    public void testTokenize() throws Exception {
+        assertEquals(Arrays.asList("We", " ", "used", " ", "GSE", "12345", "a", " ", "(", "n", "=", "3", ")", "."),
+            analyzer.tokenize("We used GSE12345a (n=3)."));
+        assertEquals(Arrays.asList("2", "\u00B5m", "\u00A0", "x", "2", "mm"), analyzer.tokenize("2\u00B5m\u00A0x2mm"));
+        assertEquals(new ArrayList<String>(), analyzer.tokenize(""));
+    }
+
+    @Test
+    public void testTokenizeSameAsReference() throws Exception {
+        String[] texts = {
+            "Samples were sequenced on an Illumina HiSeq2500 (n = 24 mice, 12 per group).",
+            "Data are available at GEO under accession GSE98765 and PDB 1ABC.",
+            "RNA-seq – 3.5×10^6 reads/sample; p<0.05 “significant”, ‘weak’ ≈ 0.1‰ at 37°C",
+            "ÉTUDE été 2019é α1β2 x86_64 ab12cd34 99bottles 7-8 ♦♥♣♠",
+            "\ttab\r\nnewline  double  space1 1space 𝔸1 1𝔸"
+        };
+        for (String text : texts) {
+            assertEquals(referenceTokenize(text), analyzer.tokenize(text));
+        }
+
+        // random texts mixing letters, digits, delimiters and other characters
+        String alphabet = "aZé9051 .,-() µ%/°xX_𝔸";
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder builder = new StringBuilder();
+            int length = random.nextInt(30);
+            for (int j = 0; j < length; j++)
+                builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            String text = builder.toString();
+            assertEquals(text, referenceTokenize(text), analyzer.tokenize(text));
+        }
+    }
+
+    @Test
+    public void testTokenizeWithLayoutToken() throws Exception {
+        String text = "Data at GSE12345, see Table2.";
+        List<LayoutToken> tokens = analyzer.tokenizeWithLayoutToken(text);
+        List<String> expected = referenceTokenize(text);
+        assertEquals(expected.size(), tokens.size());
+        int offset = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            assertEquals(expected.get(i), tokens.get(i).getText());
+            assertEquals(offset, tokens.get(i).getOffset());
+            offset += expected.get(i).length();
+        }
+    }
+}
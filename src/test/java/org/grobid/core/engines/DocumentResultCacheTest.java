@@ -0,0 +1,91 @@
+package org.grobid.core.engines;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+public class DocumentResultCacheTest {
+
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("document-cache").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Stream<java.nio.file.Path> paths = Files.walk(directory.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(java.nio.file.Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void testKey() throws Exception {
+        DocumentResultCache cache = new DocumentResultCache("v1", 1024, 0, null);
+        String key = cache.key("abcd", "processDataseerPDF/default");
+        assertEquals(key, cache.key("abcd", "processDataseerPDF/default"));
+        assertNotEquals(key, cache.key("abcd", "processDataseerPDF/dataseer-lean"));
+        assertNotEquals(key, cache.key("abce", "processDataseerPDF/default"));
+        assertNotEquals(key, new DocumentResultCache("v2", 1024, 0, null).key("abcd", "processDataseerPDF/default"));
+    }
+
+    @Test
+    public void testCompression() throws Exception {
+        String tei = "<TEI><text><s>Données étudiées</s></text></TEI>";
+        assertEquals(tei, DocumentResultCache.decompress(DocumentResultCache.compress(tei)));
+    }
+
+    @Test
+    public void testDiskTier() throws Exception {
+        DocumentResultCache cache = new DocumentResultCache("v1", 1024 * 1024, 1024 * 1024, directory.getPath());
+        String key = cache.key("abcd", "processDataseerTEI");
+        assertNull(cache.get(key));
+        cache.put(key, "<TEI/>");
+        assertEquals("<TEI/>", cache.get(key));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        // a new cache on the same directory finds the entry on disk
+        DocumentResultCache restarted = new DocumentResultCache("v1", 1024 * 1024, 1024 * 1024, directory.getPath());
+        assertEquals(1, restarted.getDiskEntries());
+        assertEquals("<TEI/>", restarted.get(key));
+        assertEquals(1, restarted.getDiskHitCount());
+
+        assertEquals(1, restarted.purge());
+        assertNull(restarted.get(key));
+        assertEquals(0, restarted.getDiskBytes());
+    }
+
+    @Test
+    public void testDiskEviction() throws Exception {
+        String result = "<TEI>" + String.join("", Collections.nCopies(100, "x")) + "</TEI>";
+        long size = DocumentResultCache.compress(result).length;
+        // room for two entries on disk, no memory tier
+        DocumentResultCache cache = new DocumentResultCache("v1", 0, 2 * size, directory.getPath());
+        String first = cache.key("1", "p");
+        String second = cache.key("2", "p");
+        String third = cache.key("3", "p");
+        cache.put(first, result);
+        cache.put(second, result);
+        // the first entry becomes the most recently used
+        assertEquals(result, cache.get(first));
+        cache.put(third, result);
+
+        assertEquals(2, cache.getDiskEntries());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get(second));
+        assertEquals(result, cache.get(first));
+        assertEquals(result, cache.get(third));
+    }
+}
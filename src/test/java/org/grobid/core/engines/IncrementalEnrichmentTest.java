@@ -0,0 +1,145 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.data.SentenceClassification;
+import org.grobid.core.utilities.XMLUtilities;
+import org.junit.Test;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IncrementalEnrichmentTest {
+
+    private static final String VERSION = "dataseer-binary_gru:1;";
+
+    private Document document(String version) throws Exception {
+        IncrementalEnrichment hasher = new IncrementalEnrichment(parse("<TEI/>"), version);
+        String xml = "<TEI xmlns=\"http://www.tei-c.org/ns/1.0\"><teiHeader><encodingDesc>" +
+            "<list type=\"dataset\"><dataset xml:id=\"dataset-1\" type=\"image\"/>" +
+            "<dataset xml:id=\"dataset-2\" type=\"tabular data\"/></list>" +
+            "<list type=\"dataInstance\"><dataInstance xml:id=\"dataInstance-1\" corresp=\"#dataset-1\"/>" +
+            "<dataInstance xml:id=\"dataInstance-2\" corresp=\"#dataset-2\"/></list>" +
+            "</encodingDesc></teiHeader><text><body>" +
+            "<div subtype=\"dataseer\"><p>" +
+            "<s xml:id=\"s1\" corresp=\"#dataInstance-1\" dataseerHash=\"" + hasher.hash("First sentence.") + "\">First sentence.</s>" +
+            "<s xml:id=\"s2\" corresp=\"#dataInstance-2\" dataseerHash=\"" + hasher.hash("Second sentence.") + "\">Second sentence, edited.</s>" +
+            "<s xml:id=\"s3\" dataseerHash=\"" + hasher.hash("Third sentence.") + "\">Third sentence.</s>" +
+            "<s xml:id=\"s4\">New sentence.</s>" +
+            "</p></div>" +
+            "<div subtype=\"dataseer\"><p><s xml:id=\"s5\" corresp=\"#dataInstance-2\">Fifth sentence.</s></p></div>" +
+            "</body></text></TEI>";
+        return parse(xml);
+    }
+
+    private Document parse(String xml) throws Exception {
+        return XMLUtilities.getDocumentBuilder(true).parse(new InputSource(new StringReader(xml)));
+    }
+
+    private Element sentence(Document doc, String id) {
+        NodeList sentences = doc.getElementsByTagName("s");
+        for (int i = 0; i < sentences.getLength(); i++) {
+            Element sentence = (Element) sentences.item(i);
+            if (id.equals(sentence.getAttribute("xml:id")))
+                return sentence;
+        }
+        return null;
+    }
+
+    private Set<String> ids(Document doc, String tag) {
+        Set<String> ids = new HashSet<>();
+        NodeList elements = doc.getElementsByTagName(tag);
+        for (int i = 0; i < elements.getLength(); i++)
+            ids.add(((Element) elements.item(i)).getAttribute("xml:id"));
+        return ids;
+    }
+
+    @Test
+    public void testPrepare() throws Exception {
+        Document doc = document(VERSION);
+        IncrementalEnrichment incremental = new IncrementalEnrichment(doc, VERSION);
+
+        // unchanged sentence with a dataset
+        SentenceClassification first = incremental.prepare(sentence(doc, "s1"), "First sentence.");
+        assertNotNull(first);
+        assertTrue(DataseerClassifier.isDatasetSentence(first));
+        assertTrue(incremental.isUnchanged(sentence(doc, "s1")));
+
+        // edited sentence
+        assertNull(incremental.prepare(sentence(doc, "s2"), "Second sentence, edited."));
+        assertFalse(sentence(doc, "s2").hasAttribute("corresp"));
+
+        // unchanged sentence without dataset
+        SentenceClassification third = incremental.prepare(sentence(doc, "s3"), "Third sentence.");
+        assertNotNull(third);
+        assertFalse(DataseerClassifier.isDatasetSentence(third));
+        assertFalse(incremental.restore(sentence(doc, "s3")));
+
+        // new sentence
+        assertNull(incremental.prepare(sentence(doc, "s4"), "New sentence."));
+
+        // new entries are numbered after the existing ones
+        assertEquals(3, incremental.nextId());
+    }
+
+    @Test
+    public void testModelChange() throws Exception {
+        Document doc = document(VERSION);
+        IncrementalEnrichment incremental = new IncrementalEnrichment(doc, "dataseer-binary_gru:2;");
+        assertNull(incremental.prepare(sentence(doc, "s1"), "First sentence."));
+        assertNull(incremental.prepare(sentence(doc, "s3"), "Third sentence."));
+    }
+
+    @Test
+    public void testRemoveObsoleteEntries() throws Exception {
+        Document doc = document(VERSION);
+        IncrementalEnrichment incremental = new IncrementalEnrichment(doc, VERSION);
+        for (String id : new String[] {"s1", "s2", "s3", "s4", "s5"})
+            incremental.prepare(sentence(doc, id), sentence(doc, id).getTextContent());
+        assertTrue(incremental.restore(sentence(doc, "s1")));
+        assertEquals("#dataInstance-1", sentence(doc, "s1").getAttribute("corresp"));
+        incremental.removeObsoleteEntries();
+
+        // the entries of the edited sentence and of the sentence without hash are removed
+        assertEquals(new HashSet<>(Arrays.asList("dataInstance-1")), ids(doc, "dataInstance"));
+        assertEquals(new HashSet<>(Arrays.asList("dataset-1")), ids(doc, "dataset"));
+
+        // the section of s5 has no dataset anymore
+        NodeList divs = doc.getElementsByTagName("div");
+        assertEquals("dataseer", ((Element) divs.item(0)).getAttribute("subtype"));
+        assertFalse(((Element) divs.item(1)).hasAttribute("subtype"));
+    }
+
+    @Test
+    public void testUpdateHash() throws Exception {
+        Document doc = document(VERSION);
+        IncrementalEnrichment incremental = new IncrementalEnrichment(doc, VERSION);
+        Element s4 = sentence(doc, "s4");
+
+        incremental.updateHash(s4, "New sentence.", new SentenceClassification("New sentence.", 0.1, 0.9));
+        assertEquals(incremental.hash("New sentence."), s4.getAttribute(IncrementalEnrichment.HASH_ATTRIBUTE));
+
+        // dataset sentence not annotated, its prediction cannot be restored from the document
+        incremental.updateHash(s4, "New sentence.", new SentenceClassification("New sentence.", 0.95, 0.05));
+        assertFalse(s4.hasAttribute(IncrementalEnrichment.HASH_ATTRIBUTE));
+    }
+
+    @Test
+    public void testNewSentenceId() throws Exception {
+        Set<String> usedIds = new HashSet<>(Arrays.asList("sentence-3", "sentence-3-1"));
+        assertEquals("sentence-2", IncrementalEnrichment.newSentenceId(usedIds, 2));
+        assertEquals("sentence-3-2", IncrementalEnrichment.newSentenceId(usedIds, 3));
+        assertTrue(usedIds.contains("sentence-3-2"));
+    }
+}
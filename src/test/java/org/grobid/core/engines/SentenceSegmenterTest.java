@@ -0,0 +1,64 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.utilities.OffsetPosition;
+import org.grobid.core.utilities.XMLUtilities;
+import org.junit.Test;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class SentenceSegmenterTest {
+
+    private SentenceSegmenter segmenter = new SentenceSegmenter(Arrays.asList("p", "figDesc"));
+
+    private Element segment(String xml, List<OffsetPosition> boundaries) throws Exception {
+        Document doc = XMLUtilities.getDocumentBuilder(true).parse(new InputSource(new StringReader(xml)));
+        Element element = doc.getDocumentElement();
+        segmenter.segment(doc, element, boundaries);
+        return element;
+    }
+
+    private static String sentence(Element element, int index) {
+        NodeList sentences = element.getElementsByTagNameNS(SentenceSegmenter.TEI_NS, "s");
+        return sentences.item(index).getTextContent();
+    }
+
+    @Test
+    public void testSplitTextNodes() throws Exception {
+        String xml = "<p xmlns=\"http://www.tei-c.org/ns/1.0\">First sentence. Second\n sentence.</p>";
+        Element p = segment(xml, Arrays.asList(new OffsetPosition(0, 15), new OffsetPosition(16, 33)));
+        assertEquals(2, p.getElementsByTagNameNS(SentenceSegmenter.TEI_NS, "s").getLength());
+        assertEquals("First sentence.", sentence(p, 0));
+        assertEquals("Second sentence.", sentence(p, 1));
+    }
+
+    @Test
+    public void testKeepInlineElements() throws Exception {
+        String xml = "<p xmlns=\"http://www.tei-c.org/ns/1.0\">We used data <ref type=\"bibr\">[1]</ref>. " +
+            "It is <ref type=\"bibr\">Fig. 1</ref> here.</p>";
+        Element p = segment(xml, Arrays.asList(new OffsetPosition(0, 17), new OffsetPosition(18, 28),
+            new OffsetPosition(29, 40)));
+        // the boundary inside "Fig. 1" is ignored
+        assertEquals(2, p.getElementsByTagNameNS(SentenceSegmenter.TEI_NS, "s").getLength());
+        assertEquals("We used data [1].", sentence(p, 0));
+        assertEquals("It is Fig. 1 here.", sentence(p, 1));
+        assertEquals(2, p.getElementsByTagNameNS(SentenceSegmenter.TEI_NS, "ref").getLength());
+    }
+
+    @Test
+    public void testFigDesc() throws Exception {
+        String xml = "<figDesc xmlns=\"http://www.tei-c.org/ns/1.0\">A figure.</figDesc>";
+        Element figDesc = segment(xml, Arrays.asList(new OffsetPosition(0, 9)));
+        assertEquals("div", figDesc.getFirstChild().getLocalName());
+        assertEquals("p", figDesc.getFirstChild().getFirstChild().getLocalName());
+        assertEquals("A figure.", sentence(figDesc, 0));
+    }
+}
@@ -0,0 +1,43 @@
+package org.grobid.core.lexicon;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CaseInsensitiveWordSetTest {
+
+    @Test
+    public void testContains() throws Exception {
+        CaseInsensitiveWordSet words = new CaseInsensitiveWordSet(Arrays.asList("the", "of", "a", "GenBank", "the", ""));
+        assertEquals(4, words.size());
+        assertTrue(words.contains("the"));
+        assertTrue(words.contains("The"));
+        assertTrue(words.contains("THE"));
+        assertTrue(words.contains("A"));
+        assertTrue(words.contains("genbank"));
+        assertTrue(words.contains(new StringBuilder("GENBANK")));
+        assertFalse(words.contains("then"));
+        assertFalse(words.contains("th"));
+        assertFalse(words.contains(""));
+        assertFalse(words.contains(null));
+    }
+
+    @Test
+    public void testManyWords() throws Exception {
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < 5000; i++)
+            list.add("word" + i);
+        CaseInsensitiveWordSet words = new CaseInsensitiveWordSet(list);
+        assertEquals(5000, words.size());
+        for (int i = 0; i < 5000; i++)
+            assertTrue(words.contains("WORD" + i));
+        assertFalse(words.contains("word5000"));
+        assertFalse(new CaseInsensitiveWordSet(new ArrayList<String>()).contains("word"));
+    }
+}
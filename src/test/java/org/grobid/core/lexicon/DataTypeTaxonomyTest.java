@@ -0,0 +1,107 @@
+package org.grobid.core.lexicon;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DataTypeTaxonomyTest {
+
+    private static final String DATA_TYPES = "{" +
+        "\"image\": {\"label\": \"Image\", \"url\": \"http://wiki/image\", \"mesh_id\": \"D1\", \"count\": 3," +
+        "  \"magnetic resonance imaging\": {\"label\": \"Magnetic Resonance Imaging\", \"url\": \"http://wiki/mri\"}," +
+        "  \"photography\": {\"label\": \"Photography\"}}," +
+        "\"tabular data\": {\"label\": \"Tabular Data\", \"description\": \"A table\"}}";
+
+    private static final String FULL_TYPES = "{" +
+        "\"Image\": {\"Magnetic Resonance Imaging\": [\"Functional MRI\"], \"Radiography\": []}," +
+        "\"Densitometry\": {}}";
+
+    private DataTypeTaxonomy taxonomy() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        return new DataTypeTaxonomy(mapper.readTree(DATA_TYPES), mapper.readTree(FULL_TYPES));
+    }
+
+    @Test
+    public void testLookup() throws Exception {
+        DataTypeTaxonomy taxonomy = taxonomy();
+
+        DataTypeTaxonomy.DataType image = taxonomy.getDataType("image");
+        assertNotNull(image);
+        assertEquals("Image", image.getLabel());
+        assertEquals("D1", image.getMeshId());
+        assertEquals(0, image.getLevel());
+        assertNull(image.getSubtype());
+
+        // case, underscores and spaces are normalized
+        assertSame(image, taxonomy.getDataType(" IMAGE "));
+        assertSame(taxonomy.getDataType("tabular data"), taxonomy.getDataType("Tabular_Data"));
+        assertEquals("A table", taxonomy.getDataType("tabular data").getDescription());
+
+        assertNull(taxonomy.getDataType("unknown type"));
+        assertNull(taxonomy.getDataType(null));
+    }
+
+    @Test
+    public void testParentChain() throws Exception {
+        DataTypeTaxonomy taxonomy = taxonomy();
+
+        DataTypeTaxonomy.DataType mri = taxonomy.getDataType("Magnetic Resonance Imaging");
+        assertEquals(1, mri.getLevel());
+        assertEquals("image", mri.getType().getName());
+        assertSame(mri, mri.getSubtype());
+
+        // leaf type only present in fulltypes.json
+        DataTypeTaxonomy.DataType fmri = taxonomy.getDataType("functional mri");
+        assertNotNull(fmri);
+        assertEquals(2, fmri.getLevel());
+        assertEquals(Arrays.asList(taxonomy.getDataType("image"), mri, fmri), fmri.getChain());
+        assertSame(mri, fmri.getSubtype());
+        assertEquals("http://wiki/mri", fmri.getClosestUrl());
+
+        // subtype without wiki page, the url is the one of its type
+        assertEquals("http://wiki/image", taxonomy.getDataType("radiography").getClosestUrl());
+        assertEquals(0, taxonomy.getDataType("densitometry").getLevel());
+        assertNull(taxonomy.getDataType("densitometry").getClosestUrl());
+    }
+
+    @Test
+    public void testAmbiguousSubtype() throws Exception {
+        String dataTypes = "{" +
+            "\"genetic data\": {\"sequence alignment\": {\"label\": \"Sequence Alignment\"}}," +
+            "\"protein data\": {\"sequence alignment\": {\"multiple alignment\": {}}}}";
+        DataTypeTaxonomy taxonomy = new DataTypeTaxonomy(new ObjectMapper().readTree(dataTypes), null);
+
+        // first occurrence wins
+        assertEquals("genetic data", taxonomy.getDataType("sequence alignment").getType().getName());
+        // the subtypes of the other occurrence keep their own parent chain
+        DataTypeTaxonomy.DataType multiple = taxonomy.getDataType("multiple alignment");
+        assertNotNull(multiple);
+        assertEquals("protein data", multiple.getType().getName());
+        assertEquals("sequence alignment", multiple.getSubtype().getName());
+    }
+
+    @Test
+    public void testMissingResources() throws Exception {
+        DataTypeTaxonomy taxonomy = DataTypeTaxonomy.load(new File("/does/not/exist.json"), new File("/does/not/exist.json"));
+        assertTrue(taxonomy.isEmpty());
+        assertNull(taxonomy.getDataType("image"));
+    }
+
+    @Test
+    public void testResources() throws Exception {
+        DataTypeTaxonomy taxonomy = DataTypeTaxonomy.load(new File("resources/DataTypes.json"), new File("resources/fulltypes.json"));
+        DataTypeTaxonomy.DataType fmri = taxonomy.getDataType("Functional MRI");
+        assertNotNull(fmri);
+        assertEquals("image", fmri.getType().getName());
+        assertEquals("magnetic resonance imaging", fmri.getSubtype().getName());
+        assertNotNull(fmri.getClosestUrl());
+    }
+}